@@ -1,6 +1,9 @@
 package com.thermostat.base;
 
+import com.thermostat.grid.SessionDispatcher;
 import com.thermostat.utils.Config;
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.remote.options.BaseOptions;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -8,19 +11,23 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.IOException;
+import java.net.http.HttpResponse;
 import java.time.Duration;
 
 /**
  * BaseTest sets up and tears down the browser session for every test method.
  *
  * HOW IT WORKS:
- *  - Connects to a local Appium server (default: http://127.0.0.1:4723)
+ *  - Connects to a local Appium server (default: http://127.0.0.1:4723), or to the
+ *    least-loaded of several servers via SessionDispatcher (-Dappium.server.urls=…)
  *  - Launches Chrome in the Appium-managed session (no mobile emulation needed)
- *  - Navigates to the thermostat app URL before each test
+ *  - Seeds the class's own thermostat ({@link TestThermostat}) before the class runs
+ *  - Navigates to the thermostat app URL, showing that thermostat, before each test
  *  - Quits the browser after each test to keep tests independent
  *
  * PREREQUISITES (run once on your machine):
@@ -38,8 +45,36 @@ public abstract class BaseTest {
 
     protected RemoteWebDriver driver;
 
+    /** The thermostat this class works on. */
+    protected final int thermostatId = thermostatId(getClass());
+
+    /** The thermostat {@code testClass} works on: its {@link TestThermostat}, else the default one. */
+    public static int thermostatId(Class<?> testClass) {
+        TestThermostat fixture = testClass.getAnnotation(TestThermostat.class);
+        return fixture != null ? fixture.value() : TestThermostat.DEFAULT_ID;
+    }
+
+    /**
+     * Puts the class's own thermostat in a known state (created if missing).
+     * Classes on the default thermostat use it as the server seeded it.
+     */
+    @BeforeClass(alwaysRun = true)
+    public void seedThermostat() throws IOException, InterruptedException {
+        if (!getClass().isAnnotationPresent(TestThermostat.class)) return;
+        String body = JsonFields.appendString(new StringBuilder("{\"name\":"), "Test " + getClass().getSimpleName())
+                .append(",\"currentTemp\":72,\"targetTemp\":70,\"systemMode\":\"cool\",\"fanMode\":\"auto\"")
+                .append(",\"currentHumidity\":45}")
+                .toString();
+        HttpResponse<String> response = new ThermostatApiClient(Config.APP_BASE_URL).replace(thermostatId, body);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding thermostat " + thermostatId + " failed: "
+                    + response.statusCode() + " " + response.body());
+        }
+        log.info("Seeded thermostat {} for {}", thermostatId, getClass().getSimpleName());
+    }
+
     @BeforeMethod
-    public void setUp() throws MalformedURLException {
+    public void setUp() {
         log.info("Starting browser session → {}", Config.APP_BASE_URL);
 
         ChromeOptions chromeOptions = new ChromeOptions();
@@ -49,21 +84,28 @@ public abstract class BaseTest {
         // chromeOptions.addArguments("--headless=new");
 
         // Appium uses the W3C WebDriver protocol — ChromeOptions work transparently
-        driver = new RemoteWebDriver(new URL(Config.APPIUM_SERVER_URL + "/wd/hub"), chromeOptions);
+        driver = SessionDispatcher.shared().acquire(chromeOptions);
         driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(Config.EXPLICIT_WAIT_SECONDS));
         driver.manage().window().maximize();
-        driver.get(Config.APP_BASE_URL);
-        log.info("Browser launched and navigated to app");
+        driver.get(Config.APP_BASE_URL + "/?thermostat=" + thermostatId);
+        log.info("Browser launched and navigated to app (thermostat {})", thermostatId);
     }
 
     @AfterMethod
     public void tearDown() {
         if (driver != null) {
-            driver.quit();
+            SessionDispatcher.shared().release(driver);
             log.info("Browser session closed");
         }
     }
 
+    @AfterSuite(alwaysRun = true)
+    public void logAppiumNodeUtilisation() {
+        if (SessionDispatcher.isStarted()) {
+            log.info("Appium node usage:\n{}", SessionDispatcher.shared().formatReport());
+        }
+    }
+
     /** Pause to allow React to finish re-rendering after a UI action. */
     protected void waitForUiSettle() {
         sleep(Config.UI_SETTLE_MS);
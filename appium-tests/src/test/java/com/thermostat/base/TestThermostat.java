@@ -0,0 +1,31 @@
+package com.thermostat.base;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The thermostat a browser test class works on.
+ *
+ * BaseTest seeds it to a known state before the class runs (PUT
+ * /api/thermostats/:id) and opens the dashboard on it. Giving every class that
+ * writes a thermostat its own id is what lets ScheduledSuiteRunner run those
+ * classes side by side: only methods on the same thermostat are kept apart.
+ *
+ * A class without this annotation uses {@link #DEFAULT_ID}, the thermostat the
+ * server seeds itself, and is not re-seeded.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TestThermostat {
+
+    /** The thermostat the dashboard shows when no id is given. */
+    int DEFAULT_ID = 1;
+
+    /** Thermostat id, unique per class; fixtures use 101 and up so they never meet real ones. */
+    int value();
+
+    /** True if the class only reads its thermostat, so its methods may overlap each other. */
+    boolean readOnly() default false;
+}
@@ -0,0 +1,162 @@
+package com.thermostat.bulk;
+
+import com.thermostat.load.ServerTimingBreakdown;
+import com.thermostat.utils.Config;
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BulkUpdateBenchmark — applies the same change set one PATCH at a time and
+ * through {@link BulkUpdateClient} at several batch sizes, and compares them.
+ *
+ * Both paths get the same number of requests in flight, so the difference is
+ * purely per-request overhead: the one-by-one path costs an update and a
+ * re-read per thermostat, a bulk request costs one read and one batch write.
+ * The Server-Timing breakdown at the end shows where that time goes.
+ *
+ * HOW TO RUN (against a running app):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.thermostat.bulk.BulkUpdateBenchmark -Dbulk.changes=2000
+ *
+ *   -Dbulk.changes             size of the change set (default 1000)
+ *   -Dbulk.thermostat.ids      ids the changes are spread over (default 1)
+ *   -Dbulk.in.flight           requests in flight for every path (default 8)
+ *   -Dbulk.batch.sizes         fixed batch sizes to try besides "auto" (default 10,50,100,250)
+ *
+ * The targetTemp of every thermostat touched is snapshotted first and restored afterwards.
+ */
+public class BulkUpdateBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkUpdateBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        int changeCount = Integer.getInteger("bulk.changes", 1000);
+        int inFlight = Integer.getInteger("bulk.in.flight", 8);
+        int[] ids = parseInts(System.getProperty("bulk.thermostat.ids", "1"));
+        int[] batchSizes = parseInts(System.getProperty("bulk.batch.sizes", "10,50,100,250"));
+
+        ServerTimingBreakdown serverTiming = new ServerTimingBreakdown();
+        ThermostatApiClient api = new ThermostatApiClient(Config.APP_BASE_URL, serverTiming::record);
+        BulkUpdateClient bulk = new BulkUpdateClient(api, inFlight);
+
+        // Walk targetTemp through 60..80 so every change really writes something
+        List<ThermostatChange> changes = new ArrayList<>(changeCount);
+        for (int i = 0; i < changeCount; i++) {
+            changes.add(ThermostatChange.targetTemp(ids[i % ids.length], 60 + i % 21));
+        }
+
+        Map<Integer, Integer> snapshot = snapshotTargetTemps(api, ids);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-12s %8s %9s %10s %10s %9s%n",
+                "path", "batch", "requests", "wall ms", "changes/s", "failed"));
+        try {
+            // Warm up connections and the server before anything is measured
+            bulk.apply(changes.subList(0, Math.min(changes.size(), inFlight * 10)));
+
+            row(sb, "one-by-one", 1, oneByOne(api, changes, inFlight));
+            for (int size : batchSizes) {
+                row(sb, "bulk", size, bulk(bulk, changes, size));
+            }
+            row(sb, "bulk (auto)", bulk.batchSizeFor(changes.size()),
+                    bulk(bulk, changes, bulk.batchSizeFor(changes.size())));
+        } finally {
+            restoreTargetTemps(api, snapshot);
+        }
+
+        log.info("{} changes over {} thermostat(s), {} request(s) in flight\n{}\nServer-Timing breakdown\n{}",
+                changeCount, ids.length, inFlight, sb, serverTiming.format());
+    }
+
+    /** Wall time and failures of one pass over the change set. */
+    private static class Run {
+        final AtomicInteger failed = new AtomicInteger();
+        long wallNanos;
+        int changes;
+    }
+
+    private static Run oneByOne(ThermostatApiClient api, List<ThermostatChange> changes, int inFlight)
+            throws InterruptedException {
+        Run run = new Run();
+        run.changes = changes.size();
+        Semaphore slots = new Semaphore(inFlight);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        long start = System.nanoTime();
+        for (ThermostatChange change : changes) {
+            slots.acquire();
+            pending.add(api.patchAsync(change.getId(), change.getChangesJson())
+                    .handle((response, error) -> {
+                        if (error != null || response.statusCode() != 200) run.failed.incrementAndGet();
+                        slots.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        run.wallNanos = System.nanoTime() - start;
+        return run;
+    }
+
+    private static Run bulk(BulkUpdateClient bulk, List<ThermostatChange> changes, int batchSize)
+            throws InterruptedException {
+        Run run = new Run();
+        run.changes = changes.size();
+        long start = System.nanoTime();
+        List<BulkUpdateResult> results = bulk.apply(changes, batchSize);
+        run.wallNanos = System.nanoTime() - start;
+        for (BulkUpdateResult r : results) {
+            if (!r.isSuccess()) run.failed.incrementAndGet();
+        }
+        return run;
+    }
+
+    private static void row(StringBuilder sb, String path, int batchSize, Run run) {
+        int requests = ceilDiv(run.changes, batchSize);
+        double seconds = run.wallNanos / 1e9;
+        sb.append(String.format("%-12s %8d %9d %10.0f %10.0f %9d%n",
+                path, batchSize, requests, seconds * 1000, run.changes / seconds, run.failed.get()));
+    }
+
+    // ── Database safety ──────────────────────────────────────────────────────
+
+    private static Map<Integer, Integer> snapshotTargetTemps(ThermostatApiClient api, int[] ids)
+            throws IOException, InterruptedException {
+        Map<Integer, Integer> snapshot = new LinkedHashMap<>();
+        for (int id : ids) {
+            HttpResponse<String> response = api.get(id);
+            if (response.statusCode() == 200) {
+                snapshot.put(id, JsonFields.getInt(response.body(), "targetTemp"));
+            }
+        }
+        log.info("Snapshot — targetTemp by thermostat: {}", snapshot);
+        return snapshot;
+    }
+
+    private static void restoreTargetTemps(ThermostatApiClient api, Map<Integer, Integer> snapshot)
+            throws IOException, InterruptedException {
+        for (Map.Entry<Integer, Integer> e : snapshot.entrySet()) {
+            api.patch(e.getKey(), "{\"targetTemp\":" + e.getValue() + "}");
+        }
+        log.info("Restored — targetTemp by thermostat: {}", snapshot);
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,265 @@
+package com.thermostat.bulk;
+
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Applies a large change set through the bulk endpoint
+ * ({@code PATCH /api/thermostats}).
+ *
+ * BATCH SIZING:
+ * Every request pays a fixed cost (round trip, one Firestore read, one batch
+ * commit) plus a small per-item cost, so fewer and larger batches are cheaper —
+ * up to the server's {@link #MAX_BATCH_SIZE}. But with a single huge batch only
+ * one request is in flight and the pipeline sits idle. {@link #batchSizeFor}
+ * therefore splits the change set evenly over as many requests as there are
+ * pipeline slots (more only when the server cap forces it).
+ *
+ * PIPELINING:
+ * Up to {@code maxInFlight} batches are outstanding at once; the next batch is
+ * sent as soon as one completes. Results come back in change-set order.
+ */
+public class BulkUpdateClient {
+
+    /** Server-side cap per request (MAX_BULK_UPDATES in shared/routes.ts — Firestore's batch limit). */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private final ThermostatApiClient api;
+    private final int maxInFlight;
+
+    public BulkUpdateClient(ThermostatApiClient api, int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be at least 1");
+        this.api = api;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Batch size that keeps every pipeline slot busy with as few requests as possible. */
+    public int batchSizeFor(int changes) {
+        if (changes <= 0) return 1;
+        int requests = Math.max(Math.min(maxInFlight, changes), ceilDiv(changes, MAX_BATCH_SIZE));
+        return ceilDiv(changes, requests);
+    }
+
+    /** Applies {@code changes} in automatically sized batches. */
+    public List<BulkUpdateResult> apply(List<ThermostatChange> changes) throws InterruptedException {
+        return apply(changes, batchSizeFor(changes.size()));
+    }
+
+    /** Applies {@code changes} in batches of {@code batchSize} (capped at {@link #MAX_BATCH_SIZE}). */
+    public List<BulkUpdateResult> apply(List<ThermostatChange> changes, int batchSize) throws InterruptedException {
+        int size = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        BulkUpdateResult[] results = new BulkUpdateResult[changes.size()];
+        Semaphore slots = new Semaphore(maxInFlight);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        for (int from = 0; from < changes.size(); from += size) {
+            List<ThermostatChange> batch = changes.subList(from, Math.min(from + size, changes.size()));
+            int offset = from;
+            slots.acquire();
+            CompletableFuture<HttpResponse<String>> sent;
+            try {
+                sent = api.bulkUpdateAsync(toJson(batch));
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            pending.add(sent.handle((response, error) -> {
+                try {
+                    fill(results, offset, batch, response, error);
+                } catch (RuntimeException e) {
+                    failAll(results, offset, batch, 0, e);
+                } finally {
+                    slots.release();
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        return List.of(results);
+    }
+
+    // ── Wire format ─────────────────────────────────────────────────────────
+
+    static String toJson(List<ThermostatChange> batch) {
+        StringBuilder sb = new StringBuilder(32 + batch.size() * 48);
+        sb.append("{\"updates\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            ThermostatChange c = batch.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(c.getId()).append(",\"changes\":").append(c.getChangesJson()).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Splits the response into one result per change. The server answers in
+     * request order, e.g.
+     * {@code {"results":[{"status":200,"id":1,"thermostat":{…}},{"status":404,…}]}}.
+     * A transport error, a failed request or a response that can't be read
+     * fails every change in the batch.
+     */
+    static void fill(BulkUpdateResult[] results, int offset, List<ThermostatChange> batch,
+                     HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            failAll(results, offset, batch, 0, error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            return;
+        }
+        String body = response.body();
+        if (response.statusCode() != 200) {
+            for (int i = 0; i < batch.size(); i++) {
+                results[offset + i] = new BulkUpdateResult(batch.get(i), response.statusCode(), body);
+            }
+            return;
+        }
+
+        List<String> items = new ArrayList<>(batch.size());
+        List<Integer> statuses = new ArrayList<>(batch.size());
+        try {
+            readResults(body, items, statuses);
+        } catch (IllegalArgumentException e) {
+            failAll(results, offset, batch, 0, e);
+            return;
+        }
+        if (items.size() != batch.size()) {
+            failAll(results, offset, batch, 0, new IllegalArgumentException(
+                    "expected " + batch.size() + " results, got " + items.size()));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            results[offset + i] = new BulkUpdateResult(batch.get(i), statuses.get(i), items.get(i));
+        }
+    }
+
+    private static void failAll(BulkUpdateResult[] results, int offset, List<ThermostatChange> batch,
+                                int status, Throwable error) {
+        String json = JsonFields.appendString(new StringBuilder("{\"message\":"), String.valueOf(error))
+                .append('}').toString();
+        for (int i = 0; i < batch.size(); i++) {
+            results[offset + i] = new BulkUpdateResult(batch.get(i), status, json);
+        }
+    }
+
+    // ── Response parsing ────────────────────────────────────────────────────
+
+    /**
+     * Walks {@code {"results":[…]}} and collects each result object's text and
+     * its {@code status}. Keys may come in any order and strings may hold
+     * anything, so every value is skipped structurally rather than searched for.
+     *
+     * @throws IllegalArgumentException if the body isn't such a document
+     */
+    static void readResults(String body, List<String> items, List<Integer> statuses) {
+        int[] pos = {0};
+        boolean found = false;
+        expect(body, pos, '{');
+        if (!consume(body, pos, '}')) {
+            do {
+                String key = readKey(body, pos);
+                if (!key.equals("results")) {
+                    skipValue(body, pos);
+                    continue;
+                }
+                found = true;
+                expect(body, pos, '[');
+                if (consume(body, pos, ']')) continue;
+                do {
+                    int start = skipSpace(body, pos);
+                    statuses.add(readResult(body, pos));
+                    items.add(body.substring(start, pos[0]));
+                } while (consume(body, pos, ','));
+                expect(body, pos, ']');
+            } while (consume(body, pos, ','));
+            expect(body, pos, '}');
+        }
+        if (!found) throw new IllegalArgumentException("no results array in: " + body);
+    }
+
+    /** Reads one result object and returns its status. */
+    private static int readResult(String body, int[] pos) {
+        int status = -1;
+        expect(body, pos, '{');
+        if (!consume(body, pos, '}')) {
+            do {
+                String key = readKey(body, pos);
+                if (key.equals("status")) {
+                    int start = skipSpace(body, pos);
+                    skipValue(body, pos);
+                    try {
+                        status = Integer.parseInt(body.substring(start, pos[0]).trim());
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("status is not an integer at " + start + " in: " + body);
+                    }
+                } else {
+                    skipValue(body, pos);
+                }
+            } while (consume(body, pos, ','));
+            expect(body, pos, '}');
+        }
+        if (status < 0) throw new IllegalArgumentException("result without a status at " + pos[0] + " in: " + body);
+        return status;
+    }
+
+    private static String readKey(String body, int[] pos) {
+        StringBuilder key = new StringBuilder();
+        int end = JsonFields.readString(body, skipSpace(body, pos), key);
+        if (end < 0) throw new IllegalArgumentException("expected a key at " + pos[0] + " in: " + body);
+        pos[0] = end;
+        expect(body, pos, ':');
+        return key.toString();
+    }
+
+    /** Moves past one value of any type, nested or not. */
+    private static void skipValue(String body, int[] pos) {
+        int i = skipSpace(body, pos);
+        if (i >= body.length()) throw new IllegalArgumentException("unexpected end of: " + body);
+        char c = body.charAt(i);
+        if (c == '"') {
+            int end = JsonFields.readString(body, i, new StringBuilder());
+            if (end < 0) throw new IllegalArgumentException("bad string at " + i + " in: " + body);
+            pos[0] = end;
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            pos[0] = i + 1;
+            if (consume(body, pos, close)) return;
+            do {
+                if (c == '{') readKey(body, pos);
+                skipValue(body, pos);
+            } while (consume(body, pos, ','));
+            expect(body, pos, close);
+        } else {
+            int end = i;
+            while (end < body.length() && ",}] \t\r\n".indexOf(body.charAt(end)) < 0) end++;
+            if (end == i) throw new IllegalArgumentException("expected a value at " + i + " in: " + body);
+            pos[0] = end;
+        }
+    }
+
+    private static void expect(String body, int[] pos, char expected) {
+        if (!consume(body, pos, expected)) {
+            throw new IllegalArgumentException("expected '" + expected + "' at " + pos[0] + " in: " + body);
+        }
+    }
+
+    private static boolean consume(String body, int[] pos, char expected) {
+        int i = skipSpace(body, pos);
+        if (i >= body.length() || body.charAt(i) != expected) return false;
+        pos[0] = i + 1;
+        return true;
+    }
+
+    private static int skipSpace(String body, int[] pos) {
+        while (pos[0] < body.length() && Character.isWhitespace(body.charAt(pos[0]))) pos[0]++;
+        return pos[0];
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
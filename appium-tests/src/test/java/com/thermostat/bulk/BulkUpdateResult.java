@@ -0,0 +1,44 @@
+package com.thermostat.bulk;
+
+/**
+ * Outcome of one {@link ThermostatChange}.
+ *
+ * {@code status} is the HTTP status that change alone would have got (200, 400
+ * or 404). If the whole request failed it is that request's status for every
+ * change in the batch, or 0 when no response arrived or it couldn't be read.
+ * {@code json} is the item from the response — it holds the updated
+ * thermostat on success and a {@code message} otherwise.
+ */
+public class BulkUpdateResult {
+
+    private final ThermostatChange change;
+    private final int status;
+    private final String json;
+
+    public BulkUpdateResult(ThermostatChange change, int status, String json) {
+        this.change = change;
+        this.status = status;
+        this.json = json;
+    }
+
+    public ThermostatChange getChange() {
+        return change;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public boolean isSuccess() {
+        return status == 200;
+    }
+
+    @Override
+    public String toString() {
+        return change + " → " + status + " " + json;
+    }
+}
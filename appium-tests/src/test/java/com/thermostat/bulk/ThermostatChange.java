@@ -0,0 +1,34 @@
+package com.thermostat.bulk;
+
+/**
+ * One partial update in a bulk change set: a thermostat id and the JSON
+ * object of fields to change, e.g. {@code {"targetTemp":70}} — the same body
+ * {@code PATCH /api/thermostats/:id} would take.
+ */
+public class ThermostatChange {
+
+    private final int id;
+    private final String changesJson;
+
+    public ThermostatChange(int id, String changesJson) {
+        this.id = id;
+        this.changesJson = changesJson;
+    }
+
+    public static ThermostatChange targetTemp(int id, int targetTemp) {
+        return new ThermostatChange(id, "{\"targetTemp\":" + targetTemp + "}");
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getChangesJson() {
+        return changesJson;
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + changesJson;
+    }
+}
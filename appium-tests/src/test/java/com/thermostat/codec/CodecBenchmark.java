@@ -0,0 +1,93 @@
+package com.thermostat.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * CodecBenchmark — compares the binary thermostat encoding with JSON.
+ *
+ * For three typical messages (a full document, a poll response and a
+ * one-field PATCH) it reports the encoded size and the encode/decode cost of
+ * each format. JSON goes through {@link ThermostatJson} (a StringBuilder
+ * out, JsonFields back in), which is how the tooling handles it today, so the
+ * comparison is against the cheapest JSON path we have rather than a library.
+ *
+ * HOW TO RUN:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.thermostat.codec.CodecBenchmark
+ *
+ *   -Dbenchmark.iterations  measured iterations per case (default 2,000,000)
+ *
+ * A warm-up pass of the same length runs first so the JIT has compiled both paths.
+ */
+public class CodecBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CodecBenchmark.class);
+
+    private static final int POLL_FIELDS = ThermostatState.ALL_FIELDS & ~(1 << ThermostatState.FIELD_NAME);
+    private static final int PATCH_FIELDS = 1 << ThermostatState.FIELD_TARGET_TEMP;
+
+    // Sink for results so the JIT can't drop the work being measured
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int iterations = Integer.getInteger("benchmark.iterations", 2_000_000);
+
+        ThermostatState state = new ThermostatState()
+                .setId(1)
+                .setName("Living Room")
+                .setCurrentTemp(71)
+                .setTargetTemp(72)
+                .setSystemMode("cool")
+                .setFanMode("auto")
+                .setCurrentHumidity(45)
+                .setLastUpdatedMillis(Instant.parse("2024-05-01T12:34:56.789Z").toEpochMilli());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %10s %10s %8s %13s %13s %13s %13s%n",
+                "message", "json B", "binary B", "saving",
+                "json enc ns", "bin enc ns", "json dec ns", "bin dec ns"));
+        row(sb, "full", state, ThermostatState.ALL_FIELDS, iterations);
+        row(sb, "poll", state, POLL_FIELDS, iterations);
+        row(sb, "patch", state, PATCH_FIELDS, iterations);
+        log.info("Binary vs JSON ({} iterations per case)\n{}", iterations, sb);
+    }
+
+    private static void row(StringBuilder sb, String label, ThermostatState state, int fields, int iterations) {
+        byte[] buf = new byte[ThermostatBinaryCodec.maxEncodedSize(state)];
+        StringBuilder json = new StringBuilder(256);
+        ThermostatState decoded = new ThermostatState();
+        ThermostatBinaryCodec.Cursor cursor = new ThermostatBinaryCodec.Cursor();
+
+        int binaryLength = ThermostatBinaryCodec.encode(state, fields, buf, 0);
+        String jsonText = ThermostatJson.write(state, fields, json);
+        int jsonLength = jsonText.getBytes(StandardCharsets.UTF_8).length;
+
+        double[] ns = new double[4];
+        for (int pass = 0; pass < 2; pass++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) blackhole += ThermostatJson.write(state, fields, json).length();
+            long t1 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) blackhole += ThermostatBinaryCodec.encode(state, fields, buf, 0);
+            long t2 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) blackhole += ThermostatJson.read(jsonText, decoded).getPresentMask();
+            long t3 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                blackhole += ThermostatBinaryCodec.decode(cursor.reset(buf, 0, binaryLength), decoded);
+            }
+            long t4 = System.nanoTime();
+            // Only the second pass counts — the first is warm-up
+            ns[0] = (t1 - t0) / (double) iterations;
+            ns[1] = (t2 - t1) / (double) iterations;
+            ns[2] = (t3 - t2) / (double) iterations;
+            ns[3] = (t4 - t3) / (double) iterations;
+        }
+
+        sb.append(String.format("%-10s %10d %10d %7.0f%% %13.1f %13.1f %13.1f %13.1f%n",
+                label, jsonLength, binaryLength, 100.0 * (jsonLength - binaryLength) / jsonLength,
+                ns[0], ns[1], ns[2], ns[3]));
+    }
+}
@@ -0,0 +1,216 @@
+package com.thermostat.codec;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.thermostat.codec.ThermostatState.FIELD_CURRENT_HUMIDITY;
+import static com.thermostat.codec.ThermostatState.FIELD_CURRENT_TEMP;
+import static com.thermostat.codec.ThermostatState.FIELD_FAN_MODE;
+import static com.thermostat.codec.ThermostatState.FIELD_ID;
+import static com.thermostat.codec.ThermostatState.FIELD_LAST_UPDATED;
+import static com.thermostat.codec.ThermostatState.FIELD_NAME;
+import static com.thermostat.codec.ThermostatState.FIELD_SYSTEM_MODE;
+import static com.thermostat.codec.ThermostatState.FIELD_TARGET_TEMP;
+
+/**
+ * Encoder/decoder for the API's compact binary thermostat format
+ * ({@code application/vnd.thermostat+binary}, see server/binary.ts).
+ *
+ * LAYOUT (version 1):
+ *  - byte  version (1)
+ *  - byte  field mask — bit n set means field n follows (ThermostatState.FIELD_*)
+ *  - fields in bit order: id varint · name varint length + UTF-8 · temps and
+ *    humidity zigzag varints · modes as one-byte enum codes (0 = string follows) ·
+ *    lastUpdated varint epoch millis
+ *
+ * Neither direction allocates on the common path: encoding writes into a
+ * caller-supplied array, decoding fills a reusable {@link ThermostatState}.
+ * Only unknown mode strings (enum code 0) create objects.
+ */
+public final class ThermostatBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.thermostat+binary";
+
+    static final int VERSION = 1;
+
+    /** Upper bound for a document without a name: 2 header bytes + 7 fields of at most 10 bytes. */
+    public static final int MAX_SIZE_WITHOUT_NAME = 2 + 7 * 10;
+
+    private ThermostatBinaryCodec() {
+    }
+
+    /** Worst-case encoded size of {@code state}, for sizing the output buffer. */
+    public static int maxEncodedSize(ThermostatState state) {
+        return MAX_SIZE_WITHOUT_NAME + 5 + state.nameLength
+                + modeLiteralSize(state.systemModeLiteral) + modeLiteralSize(state.fanModeLiteral);
+    }
+
+    private static int modeLiteralSize(String literal) {
+        return literal == null ? 0 : 5 + literal.length() * 3;
+    }
+
+    // ── Encoding ─────────────────────────────────────────────────────────────
+
+    /**
+     * Writes the fields of {@code state} that are both present and selected by {@code fieldMask}.
+     * Returns the offset just past the last byte written.
+     */
+    public static int encode(ThermostatState state, int fieldMask, byte[] out, int offset) {
+        int mask = state.presentMask & fieldMask;
+        int pos = offset;
+        out[pos++] = VERSION;
+        out[pos++] = (byte) mask;
+
+        if ((mask & (1 << FIELD_ID)) != 0) pos = writeVarint(state.id & 0xFFFFFFFFL, out, pos);
+        if ((mask & (1 << FIELD_NAME)) != 0) {
+            pos = writeVarint(state.nameLength, out, pos);
+            System.arraycopy(state.nameBytes, 0, out, pos, state.nameLength);
+            pos += state.nameLength;
+        }
+        if ((mask & (1 << FIELD_CURRENT_TEMP)) != 0) pos = writeZigzag(state.currentTemp, out, pos);
+        if ((mask & (1 << FIELD_TARGET_TEMP)) != 0) pos = writeZigzag(state.targetTemp, out, pos);
+        if ((mask & (1 << FIELD_SYSTEM_MODE)) != 0) {
+            pos = writeEnum(state.systemModeCode, state.systemModeLiteral, out, pos);
+        }
+        if ((mask & (1 << FIELD_FAN_MODE)) != 0) {
+            pos = writeEnum(state.fanModeCode, state.fanModeLiteral, out, pos);
+        }
+        if ((mask & (1 << FIELD_CURRENT_HUMIDITY)) != 0) pos = writeZigzag(state.currentHumidity, out, pos);
+        if ((mask & (1 << FIELD_LAST_UPDATED)) != 0) pos = writeVarint(state.lastUpdatedMillis, out, pos);
+        return pos;
+    }
+
+    static int writeVarint(long value, byte[] out, int pos) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    static int writeZigzag(int value, byte[] out, int pos) {
+        return writeVarint(((long) value << 1) ^ ((long) value >> 63), out, pos);
+    }
+
+    private static int writeEnum(int code, String literal, byte[] out, int pos) {
+        out[pos++] = (byte) code;
+        if (code != 0) return pos;
+        byte[] utf8 = literal.getBytes(StandardCharsets.UTF_8);
+        pos = writeVarint(utf8.length, out, pos);
+        System.arraycopy(utf8, 0, out, pos, utf8.length);
+        return pos + utf8.length;
+    }
+
+    // ── Decoding ─────────────────────────────────────────────────────────────
+
+    /**
+     * Decodes {@code length} bytes starting at {@code offset} into {@code into}
+     * (which is cleared first). Returns the mask of fields that were present.
+     *
+     * @throws IllegalArgumentException if the input is truncated or not version 1
+     */
+    public static int decode(byte[] in, int offset, int length, ThermostatState into) {
+        Cursor c = new Cursor(in, offset, offset + length);
+        return decode(c, into);
+    }
+
+    /** Allocation-free variant: reuses {@code cursor} between calls. */
+    public static int decode(Cursor cursor, ThermostatState into) {
+        into.clear();
+        int version = cursor.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary thermostat version " + version);
+        }
+        int mask = cursor.readByte();
+
+        if ((mask & (1 << FIELD_ID)) != 0) into.setId((int) cursor.readVarint());
+        if ((mask & (1 << FIELD_NAME)) != 0) {
+            int n = (int) cursor.readVarint();
+            cursor.require(n);
+            into.ensureNameCapacity(n);
+            System.arraycopy(cursor.buf, cursor.pos, into.nameBytes, 0, n);
+            cursor.pos += n;
+            into.nameLength = n;
+            into.presentMask |= 1 << FIELD_NAME;
+        }
+        if ((mask & (1 << FIELD_CURRENT_TEMP)) != 0) into.setCurrentTemp(cursor.readZigzag());
+        if ((mask & (1 << FIELD_TARGET_TEMP)) != 0) into.setTargetTemp(cursor.readZigzag());
+        if ((mask & (1 << FIELD_SYSTEM_MODE)) != 0) {
+            into.systemModeCode = cursor.readEnumCode(ThermostatState.SYSTEM_MODES.length);
+            into.systemModeLiteral = into.systemModeCode == 0 ? cursor.readString() : null;
+            into.presentMask |= 1 << FIELD_SYSTEM_MODE;
+        }
+        if ((mask & (1 << FIELD_FAN_MODE)) != 0) {
+            into.fanModeCode = cursor.readEnumCode(ThermostatState.FAN_MODES.length);
+            into.fanModeLiteral = into.fanModeCode == 0 ? cursor.readString() : null;
+            into.presentMask |= 1 << FIELD_FAN_MODE;
+        }
+        if ((mask & (1 << FIELD_CURRENT_HUMIDITY)) != 0) into.setCurrentHumidity(cursor.readZigzag());
+        if ((mask & (1 << FIELD_LAST_UPDATED)) != 0) into.setLastUpdatedMillis(cursor.readVarint());
+        return mask;
+    }
+
+    /** Read position over a byte array — reset it with {@link #reset} to decode the next message. */
+    public static final class Cursor {
+
+        private byte[] buf;
+        private int pos;
+        private int end;
+
+        public Cursor() {
+        }
+
+        public Cursor(byte[] buf, int offset, int end) {
+            reset(buf, offset, end);
+        }
+
+        public Cursor reset(byte[] buf, int offset, int end) {
+            this.buf = buf;
+            this.pos = offset;
+            this.end = end;
+            return this;
+        }
+
+        public int position() {
+            return pos;
+        }
+
+        void require(int n) {
+            if (n < 0 || pos + n > end) throw new IllegalArgumentException("Truncated binary thermostat");
+        }
+
+        int readByte() {
+            require(1);
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalArgumentException("Varint too long in binary thermostat");
+        }
+
+        int readZigzag() {
+            long n = readVarint();
+            return (int) ((n >>> 1) ^ -(n & 1));
+        }
+
+        int readEnumCode(int limit) {
+            int code = readByte();
+            if (code >= limit) throw new IllegalArgumentException("Unknown enum code " + code);
+            return code;
+        }
+
+        String readString() {
+            int n = (int) readVarint();
+            require(n);
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
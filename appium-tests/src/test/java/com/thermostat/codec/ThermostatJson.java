@@ -0,0 +1,67 @@
+package com.thermostat.codec;
+
+import com.thermostat.utils.JsonFields;
+
+import java.time.Instant;
+
+/**
+ * Converts between {@link ThermostatState} and the API's JSON documents.
+ *
+ * Works for full documents and for partial ones (PATCH bodies, SSE update
+ * deltas): only the fields present are read or written. lastUpdated is an
+ * ISO-8601 string on the wire, epoch millis in the state.
+ */
+public final class ThermostatJson {
+
+    private ThermostatJson() {
+    }
+
+    /** Writes the fields of {@code s} selected by {@code fields} into {@code sb} (cleared first). */
+    public static String write(ThermostatState s, int fields, StringBuilder sb) {
+        sb.setLength(0);
+        sb.append('{');
+        int mask = s.getPresentMask() & fields;
+        if ((mask & (1 << ThermostatState.FIELD_ID)) != 0) field(sb, "id").append(s.getId());
+        if ((mask & (1 << ThermostatState.FIELD_NAME)) != 0) {
+            JsonFields.appendString(field(sb, "name"), s.getName());
+        }
+        if ((mask & (1 << ThermostatState.FIELD_CURRENT_TEMP)) != 0) field(sb, "currentTemp").append(s.getCurrentTemp());
+        if ((mask & (1 << ThermostatState.FIELD_TARGET_TEMP)) != 0) field(sb, "targetTemp").append(s.getTargetTemp());
+        if ((mask & (1 << ThermostatState.FIELD_SYSTEM_MODE)) != 0) {
+            JsonFields.appendString(field(sb, "systemMode"), s.getSystemMode());
+        }
+        if ((mask & (1 << ThermostatState.FIELD_FAN_MODE)) != 0) {
+            JsonFields.appendString(field(sb, "fanMode"), s.getFanMode());
+        }
+        if ((mask & (1 << ThermostatState.FIELD_CURRENT_HUMIDITY)) != 0) {
+            field(sb, "currentHumidity").append(s.getCurrentHumidity());
+        }
+        if ((mask & (1 << ThermostatState.FIELD_LAST_UPDATED)) != 0) {
+            field(sb, "lastUpdated").append('"').append(Instant.ofEpochMilli(s.getLastUpdatedMillis())).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static StringBuilder field(StringBuilder sb, String name) {
+        if (sb.length() > 1) sb.append(',');
+        return sb.append('"').append(name).append("\":");
+    }
+
+    /** Reads every field present in {@code json} into {@code into} (cleared first). */
+    public static ThermostatState read(String json, ThermostatState into) {
+        into.clear();
+        if (JsonFields.has(json, "id")) into.setId(JsonFields.getInt(json, "id"));
+        if (JsonFields.has(json, "name")) into.setName(JsonFields.getString(json, "name"));
+        if (JsonFields.has(json, "currentTemp")) into.setCurrentTemp(JsonFields.getInt(json, "currentTemp"));
+        if (JsonFields.has(json, "targetTemp")) into.setTargetTemp(JsonFields.getInt(json, "targetTemp"));
+        if (JsonFields.has(json, "systemMode")) into.setSystemMode(JsonFields.getString(json, "systemMode"));
+        if (JsonFields.has(json, "fanMode")) into.setFanMode(JsonFields.getString(json, "fanMode"));
+        if (JsonFields.has(json, "currentHumidity")) {
+            into.setCurrentHumidity(JsonFields.getInt(json, "currentHumidity"));
+        }
+        if (JsonFields.has(json, "lastUpdated")) {
+            into.setLastUpdatedMillis(Instant.parse(JsonFields.getString(json, "lastUpdated")).toEpochMilli());
+        }
+        return into;
+    }
+}
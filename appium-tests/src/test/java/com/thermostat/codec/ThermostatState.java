@@ -0,0 +1,190 @@
+package com.thermostat.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mutable, reusable holder for one thermostat document — the in-memory side of
+ * {@link ThermostatBinaryCodec}.
+ *
+ * Designed so a device loop can decode every poll into the same instance
+ * without allocating: the name is kept as raw UTF-8 bytes in a reusable buffer,
+ * and the modes as small integer codes. {@link #getName()} and
+ * {@link #getSystemMode()} only build Strings when asked.
+ *
+ * {@code presentMask} says which fields were set; bit numbers are the
+ * FIELD_* constants and match the server's binary.ts.
+ */
+public class ThermostatState {
+
+    public static final int FIELD_ID = 0;
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_CURRENT_TEMP = 2;
+    public static final int FIELD_TARGET_TEMP = 3;
+    public static final int FIELD_SYSTEM_MODE = 4;
+    public static final int FIELD_FAN_MODE = 5;
+    public static final int FIELD_CURRENT_HUMIDITY = 6;
+    public static final int FIELD_LAST_UPDATED = 7;
+
+    public static final int ALL_FIELDS = 0xFF;
+
+    /** Code 0 means "not one of the known values" — the literal string is kept instead. */
+    static final String[] SYSTEM_MODES = {null, "heat", "cool", "auto", "off"};
+    static final String[] FAN_MODES = {null, "auto", "on"};
+
+    int presentMask;
+    int id;
+    byte[] nameBytes = new byte[64];
+    int nameLength;
+    int currentTemp;
+    int targetTemp;
+    int systemModeCode;
+    String systemModeLiteral;
+    int fanModeCode;
+    String fanModeLiteral;
+    int currentHumidity;
+    long lastUpdatedMillis;
+
+    /** Forgets every field, keeping the buffers for reuse. */
+    public ThermostatState clear() {
+        presentMask = 0;
+        return this;
+    }
+
+    public boolean has(int field) {
+        return (presentMask & (1 << field)) != 0;
+    }
+
+    public int getPresentMask() {
+        return presentMask;
+    }
+
+    private void mark(int field) {
+        presentMask |= 1 << field;
+    }
+
+    // ── Setters (fluent, mark the field present) ────────────────────────────
+
+    public ThermostatState setId(int id) {
+        this.id = id;
+        mark(FIELD_ID);
+        return this;
+    }
+
+    public ThermostatState setName(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        ensureNameCapacity(utf8.length);
+        System.arraycopy(utf8, 0, nameBytes, 0, utf8.length);
+        nameLength = utf8.length;
+        mark(FIELD_NAME);
+        return this;
+    }
+
+    public ThermostatState setCurrentTemp(int currentTemp) {
+        this.currentTemp = currentTemp;
+        mark(FIELD_CURRENT_TEMP);
+        return this;
+    }
+
+    public ThermostatState setTargetTemp(int targetTemp) {
+        this.targetTemp = targetTemp;
+        mark(FIELD_TARGET_TEMP);
+        return this;
+    }
+
+    public ThermostatState setSystemMode(String mode) {
+        systemModeCode = codeOf(SYSTEM_MODES, mode);
+        systemModeLiteral = systemModeCode == 0 ? mode : null;
+        mark(FIELD_SYSTEM_MODE);
+        return this;
+    }
+
+    public ThermostatState setFanMode(String mode) {
+        fanModeCode = codeOf(FAN_MODES, mode);
+        fanModeLiteral = fanModeCode == 0 ? mode : null;
+        mark(FIELD_FAN_MODE);
+        return this;
+    }
+
+    public ThermostatState setCurrentHumidity(int currentHumidity) {
+        this.currentHumidity = currentHumidity;
+        mark(FIELD_CURRENT_HUMIDITY);
+        return this;
+    }
+
+    public ThermostatState setLastUpdatedMillis(long lastUpdatedMillis) {
+        this.lastUpdatedMillis = lastUpdatedMillis;
+        mark(FIELD_LAST_UPDATED);
+        return this;
+    }
+
+    // ── Getters ─────────────────────────────────────────────────────────────
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+    }
+
+    public int getCurrentTemp() {
+        return currentTemp;
+    }
+
+    public int getTargetTemp() {
+        return targetTemp;
+    }
+
+    public String getSystemMode() {
+        return systemModeCode == 0 ? systemModeLiteral : SYSTEM_MODES[systemModeCode];
+    }
+
+    public String getFanMode() {
+        return fanModeCode == 0 ? fanModeLiteral : FAN_MODES[fanModeCode];
+    }
+
+    public int getCurrentHumidity() {
+        return currentHumidity;
+    }
+
+    public long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    /** Copies every field present in {@code other} into this state — how a partial update is applied. */
+    public ThermostatState apply(ThermostatState other) {
+        if (other.has(FIELD_ID)) setId(other.id);
+        if (other.has(FIELD_NAME)) {
+            ensureNameCapacity(other.nameLength);
+            System.arraycopy(other.nameBytes, 0, nameBytes, 0, other.nameLength);
+            nameLength = other.nameLength;
+            mark(FIELD_NAME);
+        }
+        if (other.has(FIELD_CURRENT_TEMP)) setCurrentTemp(other.currentTemp);
+        if (other.has(FIELD_TARGET_TEMP)) setTargetTemp(other.targetTemp);
+        if (other.has(FIELD_SYSTEM_MODE)) {
+            systemModeCode = other.systemModeCode;
+            systemModeLiteral = other.systemModeLiteral;
+            mark(FIELD_SYSTEM_MODE);
+        }
+        if (other.has(FIELD_FAN_MODE)) {
+            fanModeCode = other.fanModeCode;
+            fanModeLiteral = other.fanModeLiteral;
+            mark(FIELD_FAN_MODE);
+        }
+        if (other.has(FIELD_CURRENT_HUMIDITY)) setCurrentHumidity(other.currentHumidity);
+        if (other.has(FIELD_LAST_UPDATED)) setLastUpdatedMillis(other.lastUpdatedMillis);
+        return this;
+    }
+
+    void ensureNameCapacity(int length) {
+        if (nameBytes.length < length) nameBytes = new byte[Math.max(length, nameBytes.length * 2)];
+    }
+
+    static int codeOf(String[] names, String value) {
+        for (int i = 1; i < names.length; i++) {
+            if (names[i].equals(value)) return i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,271 @@
+package com.thermostat.fuzz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * One step of a fuzz sequence — a request a device or the dashboard could send
+ * to a single thermostat. Immutable, so a failing sequence can be replayed and
+ * cut down while shrinking.
+ *
+ * A {@code STEP} is the dashboard's +/- button: its body depends on the
+ * targetTemp the model holds when it runs, clamped to 50..90 like the UI.
+ */
+public final class FuzzAction {
+
+    public enum Kind {
+        /** PATCH {"targetTemp":n} — the API itself has no bounds, so n may lie outside 50..90 */
+        SET_TARGET,
+        /** PATCH targetTemp = current ± n, clamped to 50..90 */
+        STEP,
+        SET_SYSTEM_MODE,
+        SET_FAN_MODE,
+        /** PATCH with all three fields at once */
+        SET_ALL,
+        /** PATCH {} — valid; only lastUpdated moves */
+        EMPTY_PATCH,
+        /** PATCH with a field the schema doesn't know — it is stripped, so this too only moves lastUpdated */
+        UNKNOWN_FIELD,
+        /** PATCH with a wrongly typed field — must be a 400 that changes nothing */
+        INVALID_PATCH,
+        /** GET /api/thermostats/:id */
+        GET,
+        /** Poll since the last change the model knows of — must be a 304 */
+        POLL_UNCHANGED,
+        /** Poll since just before it — must return the current state */
+        POLL_CHANGED
+    }
+
+    public static final int MIN_UI_TEMP = 50;
+    public static final int MAX_UI_TEMP = 90;
+
+    static final String[] SYSTEM_MODES = {"heat", "cool", "auto", "off"};
+    static final String[] FAN_MODES = {"auto", "on"};
+
+    private static final String[] INVALID_BODIES = {
+            "{\"targetTemp\":\"warm\"}",
+            "{\"systemMode\":3}",
+            "{\"fanMode\":null}",
+            "{\"targetTemp\":72,\"fanMode\":true}",
+            "[]",
+    };
+
+    private final Kind kind;
+    private final int number;
+    private final String systemMode;
+    private final String fanMode;
+
+    private FuzzAction(Kind kind, int number, String systemMode, String fanMode) {
+        this.kind = kind;
+        this.number = number;
+        this.systemMode = systemMode;
+        this.fanMode = fanMode;
+    }
+
+    public static FuzzAction setTarget(int targetTemp) {
+        return new FuzzAction(Kind.SET_TARGET, targetTemp, null, null);
+    }
+
+    public static FuzzAction step(int delta) {
+        return new FuzzAction(Kind.STEP, delta, null, null);
+    }
+
+    public static FuzzAction systemMode(String mode) {
+        return new FuzzAction(Kind.SET_SYSTEM_MODE, 0, mode, null);
+    }
+
+    public static FuzzAction fanMode(String mode) {
+        return new FuzzAction(Kind.SET_FAN_MODE, 0, null, mode);
+    }
+
+    public static FuzzAction setAll(int targetTemp, String systemMode, String fanMode) {
+        return new FuzzAction(Kind.SET_ALL, targetTemp, systemMode, fanMode);
+    }
+
+    public static FuzzAction emptyPatch() {
+        return new FuzzAction(Kind.EMPTY_PATCH, 0, null, null);
+    }
+
+    public static FuzzAction unknownField() {
+        return new FuzzAction(Kind.UNKNOWN_FIELD, 0, null, null);
+    }
+
+    /** One of a fixed set of malformed bodies, picked by {@code variant}. */
+    public static FuzzAction invalidPatch(int variant) {
+        return new FuzzAction(Kind.INVALID_PATCH, Math.floorMod(variant, INVALID_BODIES.length), null, null);
+    }
+
+    public static FuzzAction get() {
+        return new FuzzAction(Kind.GET, 0, null, null);
+    }
+
+    public static FuzzAction pollUnchanged() {
+        return new FuzzAction(Kind.POLL_UNCHANGED, 0, null, null);
+    }
+
+    public static FuzzAction pollChanged() {
+        return new FuzzAction(Kind.POLL_CHANGED, 0, null, null);
+    }
+
+    /**
+     * A random action, weighted towards the writes the dashboard makes most:
+     * temperature changes first, then mode changes, then reads and odd bodies.
+     */
+    public static FuzzAction random(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 20) return step(random.nextBoolean() ? 1 + random.nextInt(3) : -1 - random.nextInt(3));
+        if (roll < 32) return setTarget(40 + random.nextInt(61));
+        if (roll < 44) return systemMode(SYSTEM_MODES[random.nextInt(SYSTEM_MODES.length)]);
+        if (roll < 56) return fanMode(FAN_MODES[random.nextInt(FAN_MODES.length)]);
+        if (roll < 64) {
+            return setAll(MIN_UI_TEMP + random.nextInt(MAX_UI_TEMP - MIN_UI_TEMP + 1),
+                    SYSTEM_MODES[random.nextInt(SYSTEM_MODES.length)], FAN_MODES[random.nextInt(FAN_MODES.length)]);
+        }
+        if (roll < 67) return emptyPatch();
+        if (roll < 70) return unknownField();
+        if (roll < 75) return invalidPatch(random.nextInt(INVALID_BODIES.length));
+        if (roll < 85) return get();
+        if (roll < 92) return pollUnchanged();
+        return pollChanged();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** True for every PATCH, valid or not. */
+    public boolean isPatch() {
+        return kind != Kind.GET && kind != Kind.POLL_UNCHANGED && kind != Kind.POLL_CHANGED;
+    }
+
+    /** The PATCH body to send when the thermostat is in state {@code model}; null for reads. */
+    public String patchBody(ThermostatModel model) {
+        switch (kind) {
+            case SET_TARGET:
+                return "{\"targetTemp\":" + number + "}";
+            case STEP:
+                return "{\"targetTemp\":" + steppedTemp(model.getTargetTemp()) + "}";
+            case SET_SYSTEM_MODE:
+                return "{\"systemMode\":\"" + systemMode + "\"}";
+            case SET_FAN_MODE:
+                return "{\"fanMode\":\"" + fanMode + "\"}";
+            case SET_ALL:
+                return "{\"targetTemp\":" + number + ",\"systemMode\":\"" + systemMode
+                        + "\",\"fanMode\":\"" + fanMode + "\"}";
+            case EMPTY_PATCH:
+                return "{}";
+            case UNKNOWN_FIELD:
+                return "{\"targetTemperature\":99}";
+            case INVALID_PATCH:
+                return INVALID_BODIES[number];
+            default:
+                return null;
+        }
+    }
+
+    /** What the model looks like once this action has succeeded. Reads and rejected PATCHes change nothing. */
+    public void applyTo(ThermostatModel model) {
+        switch (kind) {
+            case SET_TARGET:
+                model.setTargetTemp(number);
+                break;
+            case STEP:
+                model.setTargetTemp(steppedTemp(model.getTargetTemp()));
+                break;
+            case SET_SYSTEM_MODE:
+                model.setSystemMode(systemMode);
+                break;
+            case SET_FAN_MODE:
+                model.setFanMode(fanMode);
+                break;
+            case SET_ALL:
+                model.setTargetTemp(number);
+                model.setSystemMode(systemMode);
+                model.setFanMode(fanMode);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Like the dashboard: a press from outside the range first snaps back into it
+    private int steppedTemp(int current) {
+        return Math.max(MIN_UI_TEMP, Math.min(MAX_UI_TEMP, current + number));
+    }
+
+    /**
+     * Simpler actions to try in this one's place while shrinking — each still
+     * a single step, so a sequence only gets shorter or plainer.
+     */
+    List<FuzzAction> simplifications() {
+        List<FuzzAction> simpler = new ArrayList<>();
+        switch (kind) {
+            case SET_ALL:
+                simpler.add(systemMode(systemMode));
+                simpler.add(fanMode(fanMode));
+                simpler.add(setTarget(number));
+                break;
+            case SET_TARGET:
+                if (number != 70) simpler.add(setTarget(70));
+                break;
+            case STEP:
+                if (Math.abs(number) > 1) simpler.add(step(Integer.signum(number)));
+                break;
+            case UNKNOWN_FIELD:
+            case INVALID_PATCH:
+                simpler.add(emptyPatch());
+                break;
+            case POLL_UNCHANGED:
+            case POLL_CHANGED:
+                simpler.add(get());
+                break;
+            default:
+                break;
+        }
+        return simpler;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FuzzAction)) return false;
+        FuzzAction other = (FuzzAction) o;
+        return kind == other.kind && number == other.number
+                && Objects.equals(systemMode, other.systemMode)
+                && Objects.equals(fanMode, other.fanMode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, number, systemMode, fanMode);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case SET_TARGET:
+                return "targetTemp=" + number;
+            case STEP:
+                return (number > 0 ? "+" : "") + number;
+            case SET_SYSTEM_MODE:
+                return "systemMode=" + systemMode;
+            case SET_FAN_MODE:
+                return "fanMode=" + fanMode;
+            case SET_ALL:
+                return "targetTemp=" + number + " systemMode=" + systemMode + " fanMode=" + fanMode;
+            case INVALID_PATCH:
+                return "invalid " + INVALID_BODIES[number];
+            case EMPTY_PATCH:
+                return "empty patch";
+            case UNKNOWN_FIELD:
+                return "unknown field";
+            case GET:
+                return "get";
+            case POLL_UNCHANGED:
+                return "poll (unchanged)";
+            default:
+                return "poll (changed)";
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.thermostat.fuzz;
+
+import java.util.List;
+
+/**
+ * A sequence the API answered differently from the model: as generated (up to
+ * the step that failed) and after shrinking, with the seed that regenerates it.
+ */
+public class FuzzFailure {
+
+    private final long seed;
+    private final List<FuzzAction> original;
+    private final List<FuzzAction> shrunk;
+    private final String message;
+    private final int shrinkRuns;
+
+    public FuzzFailure(long seed, List<FuzzAction> original, List<FuzzAction> shrunk, String message, int shrinkRuns) {
+        this.seed = seed;
+        this.original = List.copyOf(original);
+        this.shrunk = List.copyOf(shrunk);
+        this.message = message;
+        this.shrinkRuns = shrinkRuns;
+    }
+
+    /** Seed of this sequence alone: -Dfuzz.seed=&lt;seed&gt; -Dfuzz.sequences=1 runs it again. */
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<FuzzAction> getOriginal() {
+        return original;
+    }
+
+    /** The shortest, plainest sequence found that still fails; its last action is the one that fails. */
+    public List<FuzzAction> getShrunk() {
+        return shrunk;
+    }
+
+    /** What the API got wrong at the last step of the shrunk sequence. */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Candidate sequences run while shrinking. */
+    public int getShrinkRuns() {
+        return shrinkRuns;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("seed %d: %d action(s), shrunk to %d in %d run(s) — %s%n",
+                seed, original.size(), shrunk.size(), shrinkRuns, message));
+        sb.append("  from ").append(ThermostatFuzzer.RESET_BODY);
+        for (int i = 0; i < shrunk.size(); i++) {
+            sb.append(String.format("%n  %2d. %s", i + 1, shrunk.get(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.thermostat.fuzz;
+
+import java.util.List;
+
+/** Results of one fuzz run: how much was covered, how fast, and what failed. */
+public class FuzzReport {
+
+    private final int sequences;
+    private final long operations;
+    private final long elapsedNanos;
+    private final List<FuzzFailure> failures;
+
+    public FuzzReport(int sequences, long operations, long elapsedNanos, List<FuzzFailure> failures) {
+        this.sequences = sequences;
+        this.operations = operations;
+        this.elapsedNanos = elapsedNanos;
+        this.failures = List.copyOf(failures);
+    }
+
+    /** Sequences run to completion or to their first failure. */
+    public int getSequences() {
+        return sequences;
+    }
+
+    /** Requests sent, including the reset at the start of each sequence. Shrinking is not counted. */
+    public long getOperations() {
+        return operations;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getOperationsPerSecond() {
+        return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+    }
+
+    public List<FuzzFailure> getFailures() {
+        return failures;
+    }
+
+    public boolean passed() {
+        return failures.isEmpty();
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%,d sequences, %,d operations in %,d ms — %,.0f ops/s, %d failure(s)",
+                sequences, operations, getElapsedMillis(), getOperationsPerSecond(), failures.size()));
+        for (FuzzFailure failure : failures) {
+            sb.append(System.lineSeparator()).append(failure);
+        }
+        return sb.toString();
+    }
+}
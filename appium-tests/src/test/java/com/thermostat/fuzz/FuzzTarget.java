@@ -0,0 +1,43 @@
+package com.thermostat.fuzz;
+
+import java.io.IOException;
+
+/**
+ * What the fuzzer runs its sequences against: the three single-thermostat
+ * endpoints of the API, either over HTTP ({@link HttpFuzzTarget}) or
+ * in-process ({@link InProcessThermostats}).
+ *
+ * Implementations must be safe to call from many threads at once; the fuzzer
+ * never sends requests for the same id from two threads at the same time.
+ */
+public interface FuzzTarget {
+
+    /** PATCH /api/thermostats/:id */
+    Response patch(int id, String jsonBody) throws IOException, InterruptedException;
+
+    /** GET /api/thermostats/:id */
+    Response get(int id) throws IOException, InterruptedException;
+
+    /** GET /api/thermostats/:id/poll?since=sinceMs */
+    Response poll(int id, long sinceMs) throws IOException, InterruptedException;
+
+    /** Status code and body of one response. */
+    final class Response {
+
+        private final int status;
+        private final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
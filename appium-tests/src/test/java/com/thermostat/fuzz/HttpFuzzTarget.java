@@ -0,0 +1,35 @@
+package com.thermostat.fuzz;
+
+import com.thermostat.utils.ThermostatApiClient;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+
+/** Runs fuzz sequences against a real server through {@link ThermostatApiClient}. */
+public class HttpFuzzTarget implements FuzzTarget {
+
+    private final ThermostatApiClient api;
+
+    public HttpFuzzTarget(ThermostatApiClient api) {
+        this.api = api;
+    }
+
+    @Override
+    public Response patch(int id, String jsonBody) throws IOException, InterruptedException {
+        return wrap(api.patch(id, jsonBody));
+    }
+
+    @Override
+    public Response get(int id) throws IOException, InterruptedException {
+        return wrap(api.get(id));
+    }
+
+    @Override
+    public Response poll(int id, long sinceMs) throws IOException, InterruptedException {
+        return wrap(api.poll(id, sinceMs));
+    }
+
+    private static Response wrap(HttpResponse<String> response) {
+        return new Response(response.statusCode(), response.body());
+    }
+}
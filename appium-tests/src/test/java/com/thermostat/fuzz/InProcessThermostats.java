@@ -0,0 +1,187 @@
+package com.thermostat.fuzz;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for the single-thermostat endpoints, so the fuzzer can
+ * run without a server — and without network round trips, at hundreds of
+ * thousands of operations per second.
+ *
+ * It answers the way server/routes.ts does:
+ *  - PATCH validates against insertThermostatSchema.partial(): numbers must be
+ *    numbers, strings strings, unknown fields are dropped, anything else is a 400
+ *  - Every accepted PATCH — even {} — sets lastUpdated to now
+ *  - Poll is a 304 when lastUpdated <= since
+ *  - Unknown ids are a 404
+ *
+ * {@code offResetsFan} plants a bug on purpose (switching the system off also
+ * puts the fan back to auto), to check that the fuzzer finds it and shrinks
+ * it to a short sequence.
+ */
+public class InProcessThermostats implements FuzzTarget {
+
+    private static final String[] NUMBER_FIELDS = {"currentTemp", "targetTemp", "currentHumidity"};
+    private static final String[] STRING_FIELDS = {"name", "systemMode", "fanMode"};
+
+    private final Map<Integer, Map<String, Object>> thermostats = new ConcurrentHashMap<>();
+    private final boolean offResetsFan;
+
+    /** Thermostats 1..count, each seeded like the server's "Living Room". */
+    public InProcessThermostats(int count) {
+        this(count, false);
+    }
+
+    public InProcessThermostats(int count, boolean offResetsFan) {
+        this.offResetsFan = offResetsFan;
+        for (int id = 1; id <= count; id++) {
+            Map<String, Object> doc = new LinkedHashMap<>();
+            doc.put("id", (double) id);
+            doc.put("name", "Living Room");
+            doc.put("currentTemp", 72.0);
+            doc.put("targetTemp", 70.0);
+            doc.put("systemMode", "cool");
+            doc.put("fanMode", "auto");
+            doc.put("currentHumidity", 45.0);
+            doc.put("lastUpdated", System.currentTimeMillis());
+            thermostats.put(id, doc);
+        }
+    }
+
+    @Override
+    public Response patch(int id, String jsonBody) {
+        Map<String, Object> doc = thermostats.get(id);
+        if (doc == null) return notFound();
+
+        Map<String, Object> body = parseObject(jsonBody);
+        if (body == null) return badRequest("Expected object", "");
+        Map<String, Object> updates = new LinkedHashMap<>();
+        for (String field : NUMBER_FIELDS) {
+            if (!body.containsKey(field)) continue;
+            if (!(body.get(field) instanceof Double)) return badRequest("Expected number", field);
+            updates.put(field, body.get(field));
+        }
+        for (String field : STRING_FIELDS) {
+            if (!body.containsKey(field)) continue;
+            if (!(body.get(field) instanceof String)) return badRequest("Expected string", field);
+            updates.put(field, body.get(field));
+        }
+
+        synchronized (doc) {
+            doc.putAll(updates);
+            if (offResetsFan && "off".equals(updates.get("systemMode"))) doc.put("fanMode", "auto");
+            doc.put("lastUpdated", System.currentTimeMillis());
+            return new Response(200, toJson(doc));
+        }
+    }
+
+    @Override
+    public Response get(int id) {
+        Map<String, Object> doc = thermostats.get(id);
+        if (doc == null) return notFound();
+        synchronized (doc) {
+            return new Response(200, toJson(doc));
+        }
+    }
+
+    @Override
+    public Response poll(int id, long sinceMs) {
+        Map<String, Object> doc = thermostats.get(id);
+        if (doc == null) return notFound();
+        synchronized (doc) {
+            if ((Long) doc.get("lastUpdated") <= sinceMs) return new Response(304, "");
+            return new Response(200, toJson(doc));
+        }
+    }
+
+    private static Response notFound() {
+        return new Response(404, "{\"message\":\"Thermostat not found\"}");
+    }
+
+    private static Response badRequest(String message, String field) {
+        return new Response(400, "{\"message\":\"" + message + "\",\"field\":\"" + field + "\"}");
+    }
+
+    // ── JSON ─────────────────────────────────────────────────────────────────
+
+    private static String toJson(Map<String, Object> doc) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, Object> e : doc.entrySet()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(e.getKey()).append("\":");
+            Object value = e.getValue();
+            if (e.getKey().equals("lastUpdated")) {
+                sb.append('"').append(Instant.ofEpochMilli((Long) value)).append('"');
+            } else if (value instanceof String) {
+                sb.append('"').append(value).append('"');
+            } else {
+                double d = (Double) value;
+                sb.append(d == Math.rint(d) ? String.valueOf((long) d) : String.valueOf(d));
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Parses a flat JSON object — string, number, boolean and null values —
+     * into field → String / Double / Boolean / null.
+     *
+     * @return the fields, or null if the body isn't such an object
+     */
+    static Map<String, Object> parseObject(String json) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        int[] pos = {skipSpace(json, 0)};
+        if (!consume(json, pos, '{')) return null;
+        if (consume(json, pos, '}')) return pos[0] == json.length() ? fields : null;
+        do {
+            String key = readString(json, pos);
+            if (key == null || !consume(json, pos, ':')) return null;
+            int start = pos[0];
+            if (start >= json.length()) return null;
+            char c = json.charAt(start);
+            if (c == '"') {
+                String value = readString(json, pos);
+                if (value == null) return null;
+                fields.put(key, value);
+            } else if (json.startsWith("true", start) || json.startsWith("false", start)
+                    || json.startsWith("null", start)) {
+                String word = c == 't' ? "true" : c == 'f' ? "false" : "null";
+                fields.put(key, c == 'n' ? null : Boolean.valueOf(word));
+                pos[0] = skipSpace(json, start + word.length());
+            } else {
+                int end = start;
+                while (end < json.length() && "+-.eE0123456789".indexOf(json.charAt(end)) >= 0) end++;
+                try {
+                    fields.put(key, Double.parseDouble(json.substring(start, end)));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                pos[0] = skipSpace(json, end);
+            }
+        } while (consume(json, pos, ','));
+        return consume(json, pos, '}') && pos[0] == json.length() ? fields : null;
+    }
+
+    // Escapes are not decoded — the fuzzer never sends any
+    private static String readString(String json, int[] pos) {
+        if (!consume(json, pos, '"')) return null;
+        int end = json.indexOf('"', pos[0]);
+        if (end < 0) return null;
+        String value = json.substring(pos[0], end);
+        pos[0] = skipSpace(json, end + 1);
+        return value;
+    }
+
+    private static boolean consume(String json, int[] pos, char expected) {
+        if (pos[0] >= json.length() || json.charAt(pos[0]) != expected) return false;
+        pos[0] = skipSpace(json, pos[0] + 1);
+        return true;
+    }
+
+    private static int skipSpace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+}
@@ -0,0 +1,346 @@
+package com.thermostat.fuzz;
+
+import com.thermostat.utils.Config;
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ThermostatFuzzer — model-based fuzzing of targetTemp, systemMode and fanMode.
+ *
+ * Generates random sequences of {@link FuzzAction}s (set-points, +/- steps,
+ * mode changes, empty and malformed PATCHes, GETs and polls), runs each one
+ * against a {@link FuzzTarget} and checks every response against a
+ * {@link ThermostatModel} that applies the same sequence.
+ *
+ * HOW IT WORKS:
+ *  - Sequence i is generated from seed + i alone, so any sequence can be
+ *    regenerated from its own seed.
+ *  - Each sequence leases a thermostat id for itself and starts by PATCHing it
+ *    to targetTemp=70, cool, fan auto, so it replays the same way every time.
+ *  - Worker threads run sequences on as many thermostats at once as there are
+ *    ids; a sequence stops at its first wrong answer.
+ *  - A failing sequence is shrunk: chunks of actions are cut out, halving the
+ *    chunk size down to one action, then single actions are swapped for
+ *    plainer ones (SET_ALL for one of its fields, a set-point for 70, ...),
+ *    keeping every change after which it still fails, until nothing helps.
+ *
+ * HOW TO RUN:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.thermostat.fuzz.ThermostatFuzzer -Dfuzz.sequences=100000
+ *
+ *   -Dfuzz.target              inprocess (default) or http (the app at app.base.url)
+ *   -Dfuzz.sequences           sequences to run (default 10000)
+ *   -Dfuzz.max.length          longest sequence, in actions (default 40)
+ *   -Dfuzz.seed                base seed (default: random, and logged)
+ *   -Dfuzz.threads             worker threads (default: one per CPU in-process, one per id over http)
+ *   -Dfuzz.thermostat.ids      http only: ids to fuzz (default 1); in-process uses 1..threads
+ *   -Dfuzz.max.failures        stop after this many failing sequences (default 1)
+ *   -Dfuzz.inject.bug          in-process only: plant a bug, to see a failure being shrunk
+ *
+ * Over http the targetTemp, systemMode and fanMode of every id are
+ * snapshotted first and restored afterwards. In-process, a short warm-up on
+ * other seeds runs before the measured run; over http there is none.
+ */
+public class ThermostatFuzzer {
+
+    private static final Logger log = LoggerFactory.getLogger(ThermostatFuzzer.class);
+
+    /** The state every sequence starts from. */
+    public static final String RESET_BODY = "{\"targetTemp\":70,\"systemMode\":\"cool\",\"fanMode\":\"auto\"}";
+
+    // Upper bound on candidate runs per failure — shrinking is quick, but a flaky
+    // failure over http could otherwise keep it going for a long time
+    private static final int MAX_SHRINK_RUNS = 2_000;
+
+    private final FuzzTarget target;
+    private final int[] ids;
+    private final int threads;
+
+    public ThermostatFuzzer(FuzzTarget target, int[] ids, int threads) {
+        if (ids.length == 0) throw new IllegalArgumentException("At least one thermostat id is needed");
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive, was " + threads);
+        this.target = target;
+        this.ids = ids.clone();
+        this.threads = threads;
+    }
+
+    /** The actions of the sequence with this seed. */
+    public static List<FuzzAction> sequence(long seed, int maxLength) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int length = 1 + random.nextInt(maxLength);
+        List<FuzzAction> actions = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) actions.add(FuzzAction.random(random));
+        return actions;
+    }
+
+    /**
+     * Runs sequences {@code seed}, {@code seed + 1}, ... until {@code sequences}
+     * have run or {@code maxFailures} have failed, then shrinks the failures.
+     * With {@code maxFailures} 0 every sequence runs and failures are neither
+     * collected nor shrunk — for warming up.
+     */
+    public FuzzReport run(long seed, int sequences, int maxLength, int maxFailures) throws InterruptedException {
+        if (maxFailures < 0) throw new IllegalArgumentException("maxFailures must not be negative");
+        BlockingQueue<Integer> freeIds = new ArrayBlockingQueue<>(ids.length);
+        for (int id : ids) freeIds.add(id);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        List<long[]> failed = Collections.synchronizedList(new ArrayList<>()); // {seed, failing step}
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    int index;
+                    while (!stop.get() && (index = next.getAndIncrement()) < sequences) {
+                        long sequenceSeed = seed + index;
+                        int id = freeIds.take();
+                        try {
+                            Violation violation = execute(id, sequence(sequenceSeed, maxLength), operations);
+                            if (violation != null && maxFailures > 0) {
+                                failed.add(new long[]{sequenceSeed, violation.step});
+                                if (failed.size() >= maxFailures) stop.set(true);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            stop.set(true);
+                            throw e;
+                        } finally {
+                            freeIds.put(id);
+                        }
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Fuzz run aborted", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        List<FuzzFailure> failures = new ArrayList<>();
+        for (long[] f : failed.subList(0, Math.min(failed.size(), maxFailures))) {
+            List<FuzzAction> original = sequence(f[0], maxLength).subList(0, (int) f[1] + 1);
+            failures.add(shrink(f[0], original));
+        }
+        return new FuzzReport(completed.get(), operations.sum(), elapsedNanos, failures);
+    }
+
+    // ── Running one sequence ─────────────────────────────────────────────────
+
+    /** Where and how a sequence went wrong. */
+    private static final class Violation {
+        final int step;
+        final String message;
+
+        Violation(int step, String message) {
+            this.step = step;
+            this.message = message;
+        }
+    }
+
+    private Violation execute(int id, List<FuzzAction> actions, LongAdder operations)
+            throws IOException, InterruptedException {
+        FuzzTarget.Response reset = target.patch(id, RESET_BODY);
+        operations.increment();
+        if (reset.getStatus() != 200) {
+            throw new IllegalStateException("Could not reset thermostat " + id + ": "
+                    + reset.getStatus() + " " + reset.getBody());
+        }
+        ThermostatModel model = ThermostatModel.fromJson(reset.getBody());
+
+        for (int i = 0; i < actions.size(); i++) {
+            String problem = check(id, actions.get(i), model);
+            operations.increment();
+            if (problem != null) return new Violation(i, actions.get(i) + ": " + problem);
+        }
+        return null;
+    }
+
+    // Sends one action and compares the answer with the model; null if it agrees
+    private String check(int id, FuzzAction action, ThermostatModel model) throws IOException, InterruptedException {
+        switch (action.getKind()) {
+            case GET:
+                return expectState(target.get(id), model);
+            case POLL_UNCHANGED: {
+                FuzzTarget.Response response = target.poll(id, model.getLastUpdatedMillis());
+                return response.getStatus() == 304 ? null
+                        : "expected 304, got " + response.getStatus() + " " + response.getBody();
+            }
+            case POLL_CHANGED:
+                return expectState(target.poll(id, model.getLastUpdatedMillis() - 1), model);
+            case INVALID_PATCH: {
+                // Nothing may change — the next read of the sequence checks that
+                FuzzTarget.Response response = target.patch(id, action.patchBody(model));
+                return response.getStatus() == 400 ? null
+                        : "expected 400, got " + response.getStatus() + " " + response.getBody();
+            }
+            default: {
+                FuzzTarget.Response response = target.patch(id, action.patchBody(model));
+                action.applyTo(model);
+                return expectState(response, model);
+            }
+        }
+    }
+
+    private static String expectState(FuzzTarget.Response response, ThermostatModel model) {
+        if (response.getStatus() != 200) return "expected 200, got " + response.getStatus() + " " + response.getBody();
+        String mismatches = model.mismatches(response.getBody());
+        if (mismatches != null) return mismatches;
+        model.setLastUpdatedMillis(ThermostatModel.lastUpdatedMillis(response.getBody()));
+        return null;
+    }
+
+    // ── Shrinking ────────────────────────────────────────────────────────────
+
+    private FuzzFailure shrink(long seed, List<FuzzAction> original) throws InterruptedException {
+        int id = ids[0];
+        int runs = 0;
+        List<FuzzAction> current = original;
+        String message = null;
+        boolean progress = true;
+        try {
+            Violation first = execute(id, current, new LongAdder());
+            runs++;
+            if (first == null) {
+                // Didn't fail again on its own — report it as found
+                return new FuzzFailure(seed, original, original, "did not fail again when replayed", runs);
+            }
+            current = current.subList(0, first.step + 1);
+            message = first.message;
+
+            while (progress && runs < MAX_SHRINK_RUNS) {
+                progress = false;
+
+                // Cut out chunks, largest first
+                for (int chunk = Math.max(1, current.size() / 2); chunk >= 1 && runs < MAX_SHRINK_RUNS; chunk /= 2) {
+                    int from = 0;
+                    while (from < current.size() && current.size() > 1 && runs < MAX_SHRINK_RUNS) {
+                        List<FuzzAction> candidate = new ArrayList<>(current.subList(0, from));
+                        candidate.addAll(current.subList(Math.min(current.size(), from + chunk), current.size()));
+                        if (candidate.isEmpty()) {
+                            from += chunk;
+                            continue;
+                        }
+                        Violation v = execute(id, candidate, new LongAdder());
+                        runs++;
+                        if (v != null) {
+                            current = candidate.subList(0, v.step + 1);
+                            message = v.message;
+                            progress = true;
+                        } else {
+                            from += chunk;
+                        }
+                    }
+                }
+
+                // Swap single actions for plainer ones
+                for (int i = 0; i < current.size() && runs < MAX_SHRINK_RUNS; i++) {
+                    for (FuzzAction simpler : current.get(i).simplifications()) {
+                        List<FuzzAction> candidate = new ArrayList<>(current);
+                        candidate.set(i, simpler);
+                        Violation v = execute(id, candidate, new LongAdder());
+                        runs++;
+                        if (v != null) {
+                            current = candidate.subList(0, v.step + 1);
+                            message = v.message;
+                            progress = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Shrinking failed", e);
+        }
+        return new FuzzFailure(seed, original, current, message, runs);
+    }
+
+    // ── Main ─────────────────────────────────────────────────────────────────
+
+    public static void main(String[] args) throws Exception {
+        boolean http = System.getProperty("fuzz.target", "inprocess").equals("http");
+        int sequences = Integer.getInteger("fuzz.sequences", 10_000);
+        int maxLength = Integer.getInteger("fuzz.max.length", 40);
+        long seed = Long.getLong("fuzz.seed", new SplittableRandom().nextLong());
+        int maxFailures = Integer.getInteger("fuzz.max.failures", 1);
+
+        FuzzTarget target;
+        int[] ids;
+        int threads;
+        Map<Integer, String> snapshot = new LinkedHashMap<>();
+        ThermostatApiClient api = null;
+        if (http) {
+            api = new ThermostatApiClient(Config.APP_BASE_URL);
+            ids = Arrays.stream(System.getProperty("fuzz.thermostat.ids", "1").split(","))
+                    .map(String::trim).filter(s -> !s.isEmpty()).mapToInt(Integer::parseInt).toArray();
+            threads = Integer.getInteger("fuzz.threads", ids.length);
+            target = new HttpFuzzTarget(api);
+            for (int id : ids) {
+                String json = api.get(id).body();
+                snapshot.put(id, "{\"targetTemp\":" + JsonFields.getInt(json, "targetTemp")
+                        + ",\"systemMode\":\"" + JsonFields.getString(json, "systemMode")
+                        + "\",\"fanMode\":\"" + JsonFields.getString(json, "fanMode") + "\"}");
+            }
+        } else {
+            threads = Integer.getInteger("fuzz.threads", Runtime.getRuntime().availableProcessors());
+            ids = new int[threads];
+            for (int i = 0; i < threads; i++) ids[i] = i + 1;
+            target = new InProcessThermostats(threads, Boolean.getBoolean("fuzz.inject.bug"));
+        }
+
+        FuzzReport report;
+        try {
+            ThermostatFuzzer fuzzer = new ThermostatFuzzer(target, ids, threads);
+            if (!http) {
+                // Warm up the JIT on seeds just below the measured run's, without
+                // collecting failures. Over http there's no JIT to warm, and every
+                // extra sequence would write to a real thermostat.
+                int warmUp = Math.min(sequences, threads * 20);
+                fuzzer.run(seed - warmUp, warmUp, maxLength, 0);
+            }
+            report = fuzzer.run(seed, sequences, maxLength, maxFailures);
+        } finally {
+            for (Map.Entry<Integer, String> e : snapshot.entrySet()) api.patch(e.getKey(), e.getValue());
+        }
+
+        String summary = String.format("Fuzzed %s with %d thread(s) over %d thermostat(s), seed %d%n%s",
+                http ? Config.APP_BASE_URL : "the in-process stand-in", threads, ids.length, seed, report.format());
+        if (report.passed()) {
+            log.info(summary);
+        } else {
+            log.error(summary);
+            System.exit(1);
+        }
+    }
+}
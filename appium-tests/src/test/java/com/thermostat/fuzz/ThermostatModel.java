@@ -0,0 +1,112 @@
+package com.thermostat.fuzz;
+
+import com.thermostat.utils.JsonFields;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The reference state of one thermostat: what the API must answer if it
+ * applied every accepted PATCH of a sequence, in order, and nothing else.
+ *
+ * Only the fields the fuzzer writes are modelled. {@code lastUpdated} is the
+ * last value the API reported — it is set by the server, so the model learns
+ * it from responses and only checks it never goes backwards (two writes can
+ * land in the same millisecond).
+ */
+public final class ThermostatModel {
+
+    private int targetTemp;
+    private String systemMode;
+    private String fanMode;
+    private long lastUpdatedMillis;
+
+    public ThermostatModel(int targetTemp, String systemMode, String fanMode, long lastUpdatedMillis) {
+        this.targetTemp = targetTemp;
+        this.systemMode = systemMode;
+        this.fanMode = fanMode;
+        this.lastUpdatedMillis = lastUpdatedMillis;
+    }
+
+    /** The model of a thermostat as the API returned it. */
+    public static ThermostatModel fromJson(String json) {
+        return new ThermostatModel(JsonFields.getInt(json, "targetTemp"), JsonFields.getString(json, "systemMode"),
+                JsonFields.getString(json, "fanMode"), lastUpdatedMillis(json));
+    }
+
+    /**
+     * Compares a thermostat document with the model.
+     *
+     * @return a description of every difference, or null if the document agrees
+     */
+    public String mismatches(String json) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            int actualTemp = JsonFields.getInt(json, "targetTemp");
+            if (actualTemp != targetTemp) {
+                sb.append("targetTemp ").append(actualTemp).append(", expected ").append(targetTemp).append("; ");
+            }
+            String actualSystem = JsonFields.getString(json, "systemMode");
+            if (!actualSystem.equals(systemMode)) {
+                sb.append("systemMode '").append(actualSystem).append("', expected '").append(systemMode).append("'; ");
+            }
+            String actualFan = JsonFields.getString(json, "fanMode");
+            if (!actualFan.equals(fanMode)) {
+                sb.append("fanMode '").append(actualFan).append("', expected '").append(fanMode).append("'; ");
+            }
+            long actualUpdated = lastUpdatedMillis(json);
+            if (actualUpdated < lastUpdatedMillis) {
+                sb.append("lastUpdated went back from ").append(Instant.ofEpochMilli(lastUpdatedMillis))
+                        .append(" to ").append(Instant.ofEpochMilli(actualUpdated)).append("; ");
+            }
+        } catch (IllegalArgumentException e) {
+            return "unreadable thermostat: " + e.getMessage();
+        }
+        return sb.length() == 0 ? null : sb.substring(0, sb.length() - 2);
+    }
+
+    static long lastUpdatedMillis(String json) {
+        try {
+            return Instant.parse(JsonFields.getString(json, "lastUpdated")).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Bad lastUpdated in: " + json, e);
+        }
+    }
+
+    public int getTargetTemp() {
+        return targetTemp;
+    }
+
+    void setTargetTemp(int targetTemp) {
+        this.targetTemp = targetTemp;
+    }
+
+    public String getSystemMode() {
+        return systemMode;
+    }
+
+    void setSystemMode(String systemMode) {
+        this.systemMode = systemMode;
+    }
+
+    public String getFanMode() {
+        return fanMode;
+    }
+
+    void setFanMode(String fanMode) {
+        this.fanMode = fanMode;
+    }
+
+    public long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    void setLastUpdatedMillis(long lastUpdatedMillis) {
+        this.lastUpdatedMillis = lastUpdatedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "targetTemp=" + targetTemp + " systemMode=" + systemMode + " fanMode=" + fanMode;
+    }
+}
@@ -0,0 +1,114 @@
+package com.thermostat.grid;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * One Appium server the {@link SessionDispatcher} can send sessions to,
+ * plus the bookkeeping used to pick the least-loaded node and report utilisation.
+ *
+ * All mutable state is guarded by the owning dispatcher's lock.
+ */
+public class AppiumNode {
+
+    private final String serverUrl;
+    private final int capacity;
+
+    private boolean healthy = true;
+    private int activeSessions;
+    private long sessionsStarted;
+    private long sessionFailures;
+    private long totalQueueNanos;
+    private long busySessionNanos;
+    private long lastChangeNanos = System.nanoTime();
+
+    AppiumNode(String serverUrl, int capacity) {
+        this.serverUrl = serverUrl;
+        this.capacity = capacity;
+    }
+
+    /** The WebDriver endpoint, matching what BaseTest has always connected to. */
+    public URL hubUrl() throws MalformedURLException {
+        return new URL(serverUrl + "/wd/hub");
+    }
+
+    /** Appium's readiness endpoint — returns {"value":{"ready":true,…}} when the node can take sessions. */
+    public String statusUrl() {
+        return serverUrl + "/wd/hub/status";
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // ── Dispatcher-side bookkeeping (caller holds the dispatcher lock) ──────
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    boolean hasFreeSlot() {
+        return healthy && activeSessions < capacity;
+    }
+
+    /** Fraction of this node's slots currently in use — lower is less loaded. */
+    double load() {
+        return (double) activeSessions / capacity;
+    }
+
+    int getActiveSessions() {
+        return activeSessions;
+    }
+
+    long getSessionsStarted() {
+        return sessionsStarted;
+    }
+
+    long getSessionFailures() {
+        return sessionFailures;
+    }
+
+    long getTotalQueueNanos() {
+        return totalQueueNanos;
+    }
+
+    void reserve() {
+        accumulateBusyTime();
+        activeSessions++;
+    }
+
+    void started(long queueNanos) {
+        sessionsStarted++;
+        totalQueueNanos += queueNanos;
+    }
+
+    void failed() {
+        sessionFailures++;
+        release();
+    }
+
+    void release() {
+        accumulateBusyTime();
+        activeSessions--;
+    }
+
+    /** Total session time (nanoseconds) spent on this node so far, counting sessions still open. */
+    long busySessionNanos() {
+        accumulateBusyTime();
+        return busySessionNanos;
+    }
+
+    private void accumulateBusyTime() {
+        long now = System.nanoTime();
+        busySessionNanos += activeSessions * (now - lastChangeNanos);
+        lastChangeNanos = now;
+    }
+}
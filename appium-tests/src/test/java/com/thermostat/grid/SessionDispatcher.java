@@ -0,0 +1,284 @@
+package com.thermostat.grid;
+
+import com.thermostat.utils.Config;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * SessionDispatcher routes each new browser session to the least-loaded Appium node.
+ *
+ * HOW IT WORKS:
+ *  - Nodes come from -Dappium.server.urls (comma-separated), defaulting to the single APPIUM_SERVER_URL
+ *  - Each node runs at most APPIUM_MAX_SESSIONS_PER_NODE sessions; a new session goes
+ *    to the healthy node with the lowest fraction of slots in use
+ *  - When every slot is taken, callers queue until a session is released
+ *  - If a node can't be reached (connection refused, timeout, /status not ready) it is
+ *    marked down and the session is retried on another node; a background check brings
+ *    the node back once /status is ready again
+ *  - Any other session error (bad capabilities, driver or app failure) would fail the
+ *    same way on every node, so it is thrown straight back to the test
+ *  - Queue time, sessions started, failures and utilisation are tracked per node
+ *    and logged at the end of the suite by BaseTest
+ *
+ * Running several Appium servers locally:
+ *  appium --port 4723 &
+ *  appium --port 4724 &
+ *  mvn test -Dappium.server.urls=http://127.0.0.1:4723,http://127.0.0.1:4724
+ */
+public class SessionDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionDispatcher.class);
+
+    private static final HttpClient STATUS_HTTP = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(3))
+            .build();
+
+    private static SessionDispatcher shared;
+
+    /** Creates a WebDriver session on a node — swapped out in unit tests. */
+    public interface SessionFactory {
+        RemoteWebDriver create(URL hubUrl, Capabilities capabilities);
+    }
+
+    private final List<AppiumNode> nodes = new ArrayList<>();
+    private final Map<RemoteWebDriver, AppiumNode> owners = new IdentityHashMap<>();
+    private final SessionFactory sessionFactory;
+    private final Predicate<AppiumNode> healthProbe;
+    private final ScheduledExecutorService healthChecker;
+    private final long healthCheckMillis;
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * @param healthProbe       true if a node can take sessions; run at start-up, after a failed
+     *                          session, and every {@code healthCheckMillis} for nodes that are down
+     */
+    public SessionDispatcher(List<String> serverUrls, int sessionsPerNode, SessionFactory sessionFactory,
+                             Predicate<AppiumNode> healthProbe, long healthCheckMillis) {
+        if (serverUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one Appium server URL is required");
+        }
+        for (String url : serverUrls) {
+            nodes.add(new AppiumNode(url, sessionsPerNode));
+        }
+        this.sessionFactory = sessionFactory;
+        this.healthProbe = healthProbe;
+        this.healthCheckMillis = healthCheckMillis;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "appium-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (AppiumNode node : nodes) {
+            boolean up = healthProbe.test(node);
+            node.setHealthy(up);
+            log.info("Appium node {} is {}", node.getServerUrl(), up ? "ready" : "DOWN");
+        }
+        healthChecker.scheduleWithFixedDelay(this::recheckDownNodes,
+                healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** The dispatcher shared by every test class in this JVM, created on first use. */
+    public static synchronized SessionDispatcher shared() {
+        if (shared == null) {
+            shared = new SessionDispatcher(Config.APPIUM_SERVER_URLS, Config.APPIUM_MAX_SESSIONS_PER_NODE,
+                    RemoteWebDriver::new, SessionDispatcher::isReady,
+                    TimeUnit.SECONDS.toMillis(Config.APPIUM_HEALTH_CHECK_SECONDS));
+        }
+        return shared;
+    }
+
+    /** True once any test has asked for a session — used to skip the end-of-suite report otherwise. */
+    public static synchronized boolean isStarted() {
+        return shared != null;
+    }
+
+    // ── Sessions ─────────────────────────────────────────────────────────────
+
+    /**
+     * Opens a session on the least-loaded healthy node, waiting for a free slot if necessary.
+     * Tries up to APPIUM_SESSION_ATTEMPTS nodes while they turn out to be unreachable;
+     * any other failure is thrown at once.
+     */
+    public RemoteWebDriver acquire(Capabilities capabilities) {
+        long queuedAt = System.nanoTime();
+        WebDriverException lastFailure = null;
+
+        for (int attempt = 1; attempt <= Config.APPIUM_SESSION_ATTEMPTS; attempt++) {
+            AppiumNode node = reserveLeastLoaded();
+            long queueNanos = System.nanoTime() - queuedAt;
+            try {
+                RemoteWebDriver driver = sessionFactory.create(node.hubUrl(), capabilities);
+                synchronized (this) {
+                    node.started(queueNanos);
+                    owners.put(driver, node);
+                }
+                log.info("Session started on {} after {} ms in queue",
+                        node.getServerUrl(), TimeUnit.NANOSECONDS.toMillis(queueNanos));
+                return driver;
+            } catch (WebDriverException | MalformedURLException e) {
+                WebDriverException failure = e instanceof WebDriverException
+                        ? (WebDriverException) e
+                        : new WebDriverException(e.getMessage(), e);
+                // Only an unreachable node is this node's fault; probe it when the error doesn't say
+                boolean nodeDown = !(e instanceof WebDriverException) || isConnectionFailure(e)
+                        || !healthProbe.test(node);
+                synchronized (this) {
+                    node.failed();
+                    if (nodeDown) node.setHealthy(false);
+                    notifyAll();
+                }
+                if (!nodeDown) {
+                    log.warn("Session failed on {}: {}", node.getServerUrl(), e.getMessage());
+                    throw failure;
+                }
+                log.warn("Node {} unreachable (attempt {}): {}", node.getServerUrl(), attempt, e.getMessage());
+                lastFailure = failure;
+            }
+        }
+        throw new SessionNotCreatedException(
+                "Could not start a session after " + Config.APPIUM_SESSION_ATTEMPTS + " attempts", lastFailure);
+    }
+
+    /** Quits the session and frees its slot for the next queued caller. */
+    public void release(RemoteWebDriver driver) {
+        try {
+            driver.quit();
+        } finally {
+            synchronized (this) {
+                AppiumNode node = owners.remove(driver);
+                if (node != null) {
+                    node.release();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks until a healthy node has a free slot, then reserves it.
+     * Fails fast-ish when every node is down: waits a few health-check rounds for one to recover.
+     */
+    private synchronized AppiumNode reserveLeastLoaded() {
+        long allDownSince = -1;
+        while (true) {
+            AppiumNode best = nodes.stream()
+                    .filter(AppiumNode::hasFreeSlot)
+                    .min(Comparator.comparingDouble(AppiumNode::load)
+                            .thenComparingLong(AppiumNode::getSessionsStarted))
+                    .orElse(null);
+            if (best != null) {
+                best.reserve();
+                return best;
+            }
+
+            if (nodes.stream().noneMatch(AppiumNode::isHealthy)) {
+                if (allDownSince < 0) allDownSince = System.nanoTime();
+                long downFor = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - allDownSince);
+                if (downFor > 3L * healthCheckMillis) {
+                    throw new SessionNotCreatedException("No healthy Appium node among " + Config.APPIUM_SERVER_URLS);
+                }
+            } else {
+                allDownSince = -1;
+            }
+
+            try {
+                wait(Math.min(1000, healthCheckMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SessionNotCreatedException("Interrupted while waiting for a free Appium node");
+            }
+        }
+    }
+
+    // ── Health checks ────────────────────────────────────────────────────────
+
+    private void recheckDownNodes() {
+        List<AppiumNode> down;
+        synchronized (this) {
+            down = nodes.stream().filter(n -> !n.isHealthy()).toList();
+        }
+        for (AppiumNode node : down) {
+            if (healthProbe.test(node)) {
+                synchronized (this) {
+                    node.setHealthy(true);
+                    notifyAll();
+                }
+                log.info("Appium node {} is back", node.getServerUrl());
+            }
+        }
+    }
+
+    /** True if the failure, or anything it wraps, is a connection that couldn't be made or timed out. */
+    static boolean isConnectionFailure(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ConnectException || t instanceof NoRouteToHostException
+                    || t instanceof UnknownHostException || t instanceof SocketTimeoutException
+                    || t instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** GET /status and look for "ready":true. */
+    static boolean isReady(AppiumNode node) {
+        try {
+            HttpResponse<String> response = STATUS_HTTP.send(
+                    HttpRequest.newBuilder(URI.create(node.statusUrl()))
+                            .timeout(Duration.ofSeconds(3))
+                            .GET()
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 && response.body().replace(" ", "").contains("\"ready\":true");
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ── Reporting ────────────────────────────────────────────────────────────
+
+    /** One line per node: state, sessions, failures, mean queue time and slot utilisation. */
+    public synchronized String formatReport() {
+        long elapsed = Math.max(1, System.nanoTime() - createdNanos);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %-6s %6s %8s %8s %13s %11s%n",
+                "appium node", "state", "active", "started", "failed", "mean queue ms", "utilisation"));
+        for (AppiumNode node : nodes) {
+            long started = node.getSessionsStarted();
+            double meanQueueMs = started == 0 ? 0 : node.getTotalQueueNanos() / 1e6 / started;
+            double utilisation = 100.0 * node.busySessionNanos() / ((double) elapsed * node.getCapacity());
+            sb.append(String.format("%-28s %-6s %6d %8d %8d %13.1f %10.1f%%%n",
+                    node.getServerUrl(), node.isHealthy() ? "up" : "DOWN", node.getActiveSessions(),
+                    started, node.getSessionFailures(), meanQueueMs, utilisation));
+        }
+        return sb.toString();
+    }
+}
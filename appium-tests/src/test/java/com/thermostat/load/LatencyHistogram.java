@@ -0,0 +1,177 @@
+package com.thermostat.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear latency histogram with a FIXED bucket layout, recorded in microseconds.
+ *
+ * HOW IT WORKS:
+ *  - Values below 128µs get one bucket each (exact)
+ *  - Above that, every power of two is split into 64 equal sub-buckets,
+ *    so any recorded value is reported within ~1.6% of its true value
+ *  - Values above ~38 hours (2^37 µs) are clamped into the last bucket
+ *
+ * Because every histogram uses the same bucket boundaries, merging two
+ * histograms is just adding their counts. A histogram merged from N workers is
+ * bit-for-bit identical to one that recorded every sample itself — the
+ * coordinator never loses precision by combining worker results.
+ *
+ * Recording is lock-free and safe from any number of threads.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;       // 64
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;           // 128
+    private static final int MAX_MSB = 36;                             // values up to 2^37 µs, ~38 hours
+    static final int BUCKET_COUNT = (MAX_MSB - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    static final long MAX_VALUE = (1L << (MAX_MSB + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    // ── Recording ───────────────────────────────────────────────────────────
+
+    /** Records a single latency sample in microseconds. Negative values count as 0. */
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        sum.add(value);
+        if (value < min.get()) min.accumulateAndGet(value, Math::min);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    /** Records the time elapsed since {@code startNanos} (from {@link System#nanoTime()}). */
+    public void recordSince(long startNanos) {
+        recordMicros((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    /** Adds every sample of {@code other} into this histogram. */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        long otherCount = other.getCount();
+        if (otherCount == 0) return;
+        totalCount.add(otherCount);
+        sum.add(other.sum.sum());
+        min.accumulateAndGet(other.min.get(), Math::min);
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    // ── Reading ─────────────────────────────────────────────────────────────
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMinMicros() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Returns the value at the given percentile (0–100), in microseconds.
+     * The answer is the upper bound of the bucket holding that rank, capped at the recorded max.
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    // ── Wire format ─────────────────────────────────────────────────────────
+
+    /**
+     * Writes the histogram sparsely: only non-empty buckets are sent.
+     * Buckets are copied first so late recordings can't make the payload inconsistent.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        long[] snapshot = new long[BUCKET_COUNT];
+        int nonEmpty = 0;
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            if (snapshot[i] != 0) {
+                nonEmpty++;
+                count += snapshot[i];
+            }
+        }
+        out.writeLong(count);
+        out.writeLong(sum.sum());
+        out.writeLong(getMinMicros());
+        out.writeLong(getMaxMicros());
+        out.writeInt(nonEmpty);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (snapshot[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(snapshot[i]);
+            }
+        }
+    }
+
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        LatencyHistogram h = new LatencyHistogram();
+        long count = in.readLong();
+        h.totalCount.add(count);
+        h.sum.add(in.readLong());
+        long minValue = in.readLong();
+        h.max.set(in.readLong());
+        if (count > 0) h.min.set(minValue);
+        int nonEmpty = in.readInt();
+        for (int n = 0; n < nonEmpty; n++) {
+            int index = in.readUnsignedShort();
+            h.counts.set(index, in.readLong());
+        }
+        return h;
+    }
+
+    // ── Bucket math ─────────────────────────────────────────────────────────
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
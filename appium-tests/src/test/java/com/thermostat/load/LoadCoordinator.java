@@ -0,0 +1,257 @@
+package com.thermostat.load;
+
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadCoordinator — splits a {@link LoadScenario} across several worker JVMs
+ * and merges their results into one report.
+ *
+ * HOW IT WORKS:
+ *  1. Listens on -Dload.port (default 7400) and waits for -Dload.workers workers to connect
+ *  2. Snapshots the targetTemp of every thermostat in the scenario
+ *  3. Sends each worker its slice, then a START signal so all of them begin together
+ *  4. Collects every worker's {@link LoadReport} and merges histograms and counters
+ *  5. Restores the snapshotted targetTemps — the database is left as it was found
+ *
+ * LOCAL (several processes on one box):
+ *  mvn test-compile exec:java -Dexec.classpathScope=test \
+ *      -Dexec.mainClass=com.thermostat.load.LoadCoordinator \
+ *      -Dload.workers=4 -Dload.spawn=true -Dload.pollers=4000
+ *
+ * DISTRIBUTED: start the coordinator without -Dload.spawn, then start a
+ * {@link LoadWorker} on each load machine pointing at -Dload.coordinator=host:port.
+ */
+public class LoadCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadCoordinator.class);
+
+    /** Gap between sending START and workers beginning — long enough for every worker to receive it. */
+    private static final long START_DELAY_MILLIS = 2_000;
+
+    /** How long a new connection gets to send its HELLO. */
+    private static final long HELLO_TIMEOUT_MILLIS = 10_000;
+
+    private final LoadScenario scenario;
+    private final int workerCount;
+    private final int port;
+
+    public LoadCoordinator(LoadScenario scenario, int workerCount, int port) {
+        this.scenario = scenario;
+        this.workerCount = workerCount;
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadCoordinator coordinator = new LoadCoordinator(
+                LoadScenario.fromSystemProperties(),
+                Integer.getInteger("load.workers", 2),
+                Integer.getInteger("load.port", Protocol.DEFAULT_PORT));
+        LoadReport report = coordinator.run(Boolean.getBoolean("load.spawn"));
+        log.info("\n{}", report.format());
+    }
+
+    /** Runs the whole distributed scenario and returns the merged report. */
+    public LoadReport run(boolean spawnLocalWorkers) throws IOException, InterruptedException {
+        log.info("Coordinator: {} worker(s), scenario: {}", workerCount, scenario);
+        List<Process> spawned = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        boolean finished = false;
+
+        try {
+            try (ServerSocket server = new ServerSocket(port)) {
+                server.setSoTimeout((int) TimeUnit.MINUTES.toMillis(2));
+                if (spawnLocalWorkers) {
+                    for (int i = 0; i < workerCount; i++) {
+                        spawned.add(spawnWorker());
+                    }
+                }
+                while (sockets.size() < workerCount) {
+                    Socket socket = server.accept();
+                    String worker = handshake(socket);
+                    if (worker == null) continue;
+                    log.info("Worker {} connected from {}", sockets.size(), worker);
+                    sockets.add(socket);
+                }
+            }
+
+            Map<Integer, Integer> snapshot = snapshotTargetTemps();
+            try {
+                LoadReport report = runWorkers(sockets);
+                finished = true;
+                return report;
+            } finally {
+                restoreTargetTemps(snapshot);
+            }
+        } finally {
+            for (Socket socket : sockets) closeQuietly(socket);
+            for (Process process : spawned) {
+                // After a failure nobody will talk to the workers again — don't leave them running
+                if (!finished || !process.waitFor(30, TimeUnit.SECONDS)) process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Reads a worker's HELLO. Anything else — wrong message, wrong magic,
+     * silence or a dropped connection — closes that socket and returns null,
+     * so one stray connection doesn't abort the run.
+     */
+    private static String handshake(Socket socket) {
+        try {
+            socket.setSoTimeout((int) HELLO_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            if (in.readByte() != Protocol.HELLO || in.readInt() != Protocol.MAGIC) {
+                log.warn("Ignoring connection from {}: not a load worker", socket.getRemoteSocketAddress());
+                closeQuietly(socket);
+                return null;
+            }
+            String worker = in.readUTF();
+            socket.setSoTimeout(0);
+            return worker;
+        } catch (IOException e) {
+            log.warn("Ignoring connection from {}: {}", socket.getRemoteSocketAddress(), e.toString());
+            closeQuietly(socket);
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Closing {} failed: {}", socket.getRemoteSocketAddress(), e.toString());
+        }
+    }
+
+    private LoadReport runWorkers(List<Socket> sockets) throws IOException, InterruptedException {
+        List<DataOutputStream> outs = new ArrayList<>();
+        for (int i = 0; i < sockets.size(); i++) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sockets.get(i).getOutputStream()));
+            out.writeByte(Protocol.ASSIGN);
+            out.writeInt(i);
+            scenario.split(sockets.size(), i).writeTo(out);
+            out.flush();
+            outs.add(out);
+        }
+        for (DataOutputStream out : outs) {
+            out.writeByte(Protocol.START);
+            out.writeLong(START_DELAY_MILLIS);
+            out.flush();
+        }
+
+        // Reports arrive at roughly the same time — read them in parallel so a slow worker doesn't block the rest
+        int readTimeout = (int) TimeUnit.SECONDS.toMillis(scenario.getDurationSeconds() + 60L);
+        ExecutorService readers = Executors.newFixedThreadPool(sockets.size());
+        try {
+            List<Future<LoadReport>> futures = new ArrayList<>();
+            for (Socket socket : sockets) {
+                socket.setSoTimeout(readTimeout);
+                futures.add(readers.submit(() -> {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    Protocol.expect(in.readByte(), Protocol.REPORT);
+                    return LoadReport.readFrom(in);
+                }));
+            }
+            List<LoadReport> reports = new ArrayList<>();
+            for (Future<LoadReport> future : futures) {
+                try {
+                    reports.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Worker failed to report", e.getCause());
+                }
+            }
+            return LoadReport.mergeAll(reports);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    // ── Database safety ──────────────────────────────────────────────────────
+
+    private Map<Integer, Integer> snapshotTargetTemps() throws IOException, InterruptedException {
+        Map<Integer, Integer> snapshot = new LinkedHashMap<>();
+        if (scenario.getPatchers() == 0) return snapshot;
+        ThermostatApiClient api = new ThermostatApiClient(scenario.getBaseUrl());
+        for (int id : scenario.getThermostatIds()) {
+            HttpResponse<String> response = api.get(id);
+            if (response.statusCode() == 200) {
+                snapshot.put(id, JsonFields.getInt(response.body(), "targetTemp"));
+            }
+        }
+        log.info("Snapshot — targetTemp by thermostat: {}", snapshot);
+        return snapshot;
+    }
+
+    private void restoreTargetTemps(Map<Integer, Integer> snapshot) throws IOException, InterruptedException {
+        ThermostatApiClient api = new ThermostatApiClient(scenario.getBaseUrl());
+        for (Map.Entry<Integer, Integer> e : snapshot.entrySet()) {
+            api.patch(e.getKey(), "{\"targetTemp\":" + e.getValue() + "}");
+        }
+        if (!snapshot.isEmpty()) log.info("Restored — targetTemp by thermostat: {}", snapshot);
+    }
+
+    // ── Local worker processes ───────────────────────────────────────────────
+
+    private Process spawnWorker() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java,
+                "-cp", workerClasspath(),
+                "-Dload.coordinator=127.0.0.1:" + port,
+                LoadWorker.class.getName())
+                .inheritIO()
+                .start();
+    }
+
+    /**
+     * Under {@code exec:java} the project classes live in a child URLClassLoader,
+     * not on java.class.path — collect both so spawned workers see the same classes.
+     */
+    private static String workerClasspath() {
+        Set<String> entries = new LinkedHashSet<>();
+        ClassLoader loader = LoadCoordinator.class.getClassLoader();
+        while (loader != null) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    try {
+                        entries.add(Paths.get(url.toURI()).toString());
+                    } catch (URISyntaxException | IllegalArgumentException ignored) {
+                        // Non-file URLs can't go on a command-line classpath
+                    }
+                }
+            }
+            loader = loader.getParent();
+        }
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) entries.add(entry);
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+}
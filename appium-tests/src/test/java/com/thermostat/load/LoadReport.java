@@ -0,0 +1,144 @@
+package com.thermostat.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of a load run: per-operation stats, free-form counters
+ * (e.g. number of SSE update events received) and the server-side
+ * phase breakdown collected from Server-Timing headers.
+ *
+ * A worker fills one of these while it runs and ships it to the coordinator,
+ * which merges every worker's report into a single one with {@link #merge}.
+ */
+public class LoadReport {
+
+    private final Map<String, OperationStats> operations = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final ServerTimingBreakdown serverTiming = new ServerTimingBreakdown();
+    private long elapsedMillis;
+    private int workerCount = 1;
+
+    /** Returns the stats for {@code name}, creating them on first use. */
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, k -> new OperationStats());
+    }
+
+    /** Returns the counter for {@code name}, creating it on first use. */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return operations;
+    }
+
+    public Map<String, LongAdder> getCounters() {
+        return counters;
+    }
+
+    public ServerTimingBreakdown getServerTiming() {
+        return serverTiming;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Folds {@code other} into this report. Workers run in parallel, so the
+     * merged wall-clock time is the longest worker's, not the sum.
+     */
+    public void merge(LoadReport other) {
+        other.operations.forEach((name, stats) -> operation(name).merge(stats));
+        other.counters.forEach((name, value) -> counter(name).add(value.sum()));
+        serverTiming.merge(other.serverTiming);
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    /** Merges a list of worker reports into a fresh one. */
+    public static LoadReport mergeAll(Iterable<LoadReport> reports) {
+        LoadReport merged = new LoadReport();
+        int workers = 0;
+        for (LoadReport report : reports) {
+            merged.merge(report);
+            workers += report.workerCount;
+        }
+        merged.workerCount = workers;
+        return merged;
+    }
+
+    // ── Wire format ─────────────────────────────────────────────────────────
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(elapsedMillis);
+        out.writeInt(operations.size());
+        for (Map.Entry<String, OperationStats> e : operations.entrySet()) {
+            out.writeUTF(e.getKey());
+            e.getValue().writeTo(out);
+        }
+        out.writeInt(counters.size());
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue().sum());
+        }
+        serverTiming.writeTo(out);
+    }
+
+    public static LoadReport readFrom(DataInput in) throws IOException {
+        LoadReport report = new LoadReport();
+        report.elapsedMillis = in.readLong();
+        int ops = in.readInt();
+        for (int i = 0; i < ops; i++) {
+            report.operations.put(in.readUTF(), OperationStats.readFrom(in));
+        }
+        int counterCount = in.readInt();
+        for (int i = 0; i < counterCount; i++) {
+            report.counter(in.readUTF()).add(in.readLong());
+        }
+        report.serverTiming.merge(ServerTimingBreakdown.readFrom(in));
+        return report;
+    }
+
+    // ── Formatting ──────────────────────────────────────────────────────────
+
+    /** Renders a fixed-width table: one row per operation, then the counters and server phases. */
+    public String format() {
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Load report — %d worker(s), %.1fs%n", workerCount, seconds));
+        sb.append(String.format("%-16s %10s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "ok", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, OperationStats> e : operations.entrySet()) {
+            OperationStats s = e.getValue();
+            LatencyHistogram h = s.getLatency();
+            sb.append(String.format("%-16s %10d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.getKey(), s.getSuccessCount(), s.getErrorCount(),
+                    s.getSuccessCount() / seconds,
+                    h.getMeanMicros() / 1000.0,
+                    h.getPercentileMicros(50) / 1000.0,
+                    h.getPercentileMicros(90) / 1000.0,
+                    h.getPercentileMicros(99) / 1000.0,
+                    h.getMaxMicros() / 1000.0));
+        }
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+            sb.append(String.format("%-16s %10d%n", e.getKey(), e.getValue().sum()));
+        }
+        if (!serverTiming.isEmpty()) {
+            sb.append(String.format("%nServer-Timing breakdown%n")).append(serverTiming.format());
+        }
+        return sb.toString();
+    }
+}
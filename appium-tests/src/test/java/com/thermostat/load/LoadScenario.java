@@ -0,0 +1,206 @@
+package com.thermostat.load;
+
+import com.thermostat.utils.Config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Describes how much device traffic to generate against {@code /api/thermostats/*}.
+ *
+ * A scenario models a fleet of virtual devices:
+ *  - pollers         — each calls GET /:id/poll?since=… every pollIntervalMs
+ *  - patchers        — each sends PATCH /:id with a new targetTemp every patchIntervalMs
+ *  - sseConnections  — each holds GET /:id/listen open for the whole run
+ *  - listers         — dashboards, each calls GET /api/thermostats every listIntervalMs
+ *
+ * With readAfterWrite every successful PATCH is followed straight away by a
+ * GET of the same thermostat, which must not return anything older than the
+ * PATCH wrote — a stale read means a cache served an outdated copy.
+ *
+ * Devices are spread round-robin across {@code thermostatIds}. The coordinator
+ * cuts one scenario into per-worker slices with {@link #split}; every slice keeps
+ * the same rates but owns a disjoint range of virtual devices.
+ *
+ * All values can be overridden with system properties, e.g.
+ *  -Dload.pollers=2000 -Dload.poll.interval.ms=5000 -Dload.duration.seconds=120
+ */
+public class LoadScenario {
+
+    private final String baseUrl;
+    private final int[] thermostatIds;
+    private final int durationSeconds;
+    private final int pollers;
+    private final int pollIntervalMs;
+    private final int patchers;
+    private final int patchIntervalMs;
+    private final int sseConnections;
+    private final int listers;
+    private final int listIntervalMs;
+    private final boolean readAfterWrite;
+    private final int deviceOffset;
+
+    public LoadScenario(String baseUrl, int[] thermostatIds, int durationSeconds,
+                        int pollers, int pollIntervalMs,
+                        int patchers, int patchIntervalMs,
+                        int sseConnections,
+                        int listers, int listIntervalMs,
+                        boolean readAfterWrite, int deviceOffset) {
+        if (thermostatIds.length == 0) {
+            throw new IllegalArgumentException("At least one thermostat id is required");
+        }
+        this.baseUrl = baseUrl;
+        this.thermostatIds = thermostatIds.clone();
+        this.durationSeconds = durationSeconds;
+        this.pollers = pollers;
+        this.pollIntervalMs = pollIntervalMs;
+        this.patchers = patchers;
+        this.patchIntervalMs = patchIntervalMs;
+        this.sseConnections = sseConnections;
+        this.listers = listers;
+        this.listIntervalMs = listIntervalMs;
+        this.readAfterWrite = readAfterWrite;
+        this.deviceOffset = deviceOffset;
+    }
+
+    /** Builds the scenario from {@code -Dload.*} system properties, with modest defaults. */
+    public static LoadScenario fromSystemProperties() {
+        int[] ids = Arrays.stream(System.getProperty("load.thermostat.ids", "1").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        return new LoadScenario(
+                Config.APP_BASE_URL,
+                ids,
+                Integer.getInteger("load.duration.seconds", 60),
+                Integer.getInteger("load.pollers", 100),
+                Integer.getInteger("load.poll.interval.ms", 1000),
+                Integer.getInteger("load.patchers", 5),
+                Integer.getInteger("load.patch.interval.ms", 5000),
+                Integer.getInteger("load.sse.connections", 20),
+                Integer.getInteger("load.listers", 0),
+                Integer.getInteger("load.list.interval.ms", 5000),
+                Boolean.getBoolean("load.read.after.write"),
+                0);
+    }
+
+    /**
+     * Returns the slice of this scenario that worker {@code index} of {@code workers} should run.
+     * Device counts are divided as evenly as possible; the first workers take the remainder.
+     */
+    public LoadScenario split(int workers, int index) {
+        return new LoadScenario(baseUrl, thermostatIds, durationSeconds,
+                share(pollers, workers, index), pollIntervalMs,
+                share(patchers, workers, index), patchIntervalMs,
+                share(sseConnections, workers, index),
+                share(listers, workers, index), listIntervalMs,
+                readAfterWrite,
+                deviceOffset + offset(pollers + patchers + sseConnections, workers, index));
+    }
+
+    private static int share(int total, int workers, int index) {
+        return total / workers + (index < total % workers ? 1 : 0);
+    }
+
+    private static int offset(int total, int workers, int index) {
+        int sum = 0;
+        for (int i = 0; i < index; i++) sum += share(total, workers, i);
+        return sum;
+    }
+
+    /** The thermostat id that virtual device number {@code device} of this slice talks to. */
+    public int thermostatIdFor(int device) {
+        return thermostatIds[(deviceOffset + device) % thermostatIds.length];
+    }
+
+    // ── Getters ─────────────────────────────────────────────────────────────
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int[] getThermostatIds() {
+        return thermostatIds.clone();
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getPollers() {
+        return pollers;
+    }
+
+    public int getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public int getPatchers() {
+        return patchers;
+    }
+
+    public int getPatchIntervalMs() {
+        return patchIntervalMs;
+    }
+
+    public int getSseConnections() {
+        return sseConnections;
+    }
+
+    public int getListers() {
+        return listers;
+    }
+
+    public int getListIntervalMs() {
+        return listIntervalMs;
+    }
+
+    public boolean isReadAfterWrite() {
+        return readAfterWrite;
+    }
+
+    public int getDeviceOffset() {
+        return deviceOffset;
+    }
+
+    // ── Wire format ─────────────────────────────────────────────────────────
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(baseUrl);
+        out.writeInt(thermostatIds.length);
+        for (int id : thermostatIds) out.writeInt(id);
+        out.writeInt(durationSeconds);
+        out.writeInt(pollers);
+        out.writeInt(pollIntervalMs);
+        out.writeInt(patchers);
+        out.writeInt(patchIntervalMs);
+        out.writeInt(sseConnections);
+        out.writeInt(listers);
+        out.writeInt(listIntervalMs);
+        out.writeBoolean(readAfterWrite);
+        out.writeInt(deviceOffset);
+    }
+
+    public static LoadScenario readFrom(DataInput in) throws IOException {
+        String baseUrl = in.readUTF();
+        int[] ids = new int[in.readInt()];
+        for (int i = 0; i < ids.length; i++) ids[i] = in.readInt();
+        return new LoadScenario(baseUrl, ids,
+                in.readInt(),
+                in.readInt(), in.readInt(),
+                in.readInt(), in.readInt(),
+                in.readInt(),
+                in.readInt(), in.readInt(),
+                in.readBoolean(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pollers @%dms, %d patchers @%dms%s, %d SSE, %d listers @%dms, %ds against %s %s",
+                pollers, pollIntervalMs, patchers, patchIntervalMs, readAfterWrite ? " (read-after-write)" : "",
+                sseConnections, listers, listIntervalMs, durationSeconds, baseUrl, Arrays.toString(thermostatIds));
+    }
+}
@@ -0,0 +1,311 @@
+package com.thermostat.load;
+
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadWorker — generates one slice of device traffic and reports what it measured.
+ *
+ * HOW IT WORKS:
+ *  - Connects to the coordinator (-Dload.coordinator=host:port, default 127.0.0.1:7400)
+ *  - Receives its slice of the scenario, then waits for the START signal
+ *  - Drives every virtual device from a small scheduler using the async HttpClient,
+ *    so a few threads can keep thousands of polls, PATCHes, list calls and SSE streams in flight
+ *  - Collects each response's Server-Timing header into per-endpoint phase histograms
+ *  - Sends its {@link LoadReport} back to the coordinator and exits
+ *
+ * Run it on any machine that can reach both the coordinator and the app:
+ *  mvn test-compile exec:java -Dexec.classpathScope=test \
+ *      -Dexec.mainClass=com.thermostat.load.LoadWorker -Dload.coordinator=10.0.0.5:7400
+ *
+ * For a single-JVM run, skip the coordinator: {@code new LoadWorker(scenario).run()}.
+ */
+public class LoadWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadWorker.class);
+
+    /** How long to wait for in-flight requests to drain once the run is over. */
+    private static final long DRAIN_MILLIS = 5_000;
+
+    private final LoadScenario scenario;
+    private final ThermostatApiClient api;
+    private final LoadReport report = new LoadReport();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<Flow.Subscription> sseSubscriptions = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public LoadWorker(LoadScenario scenario) {
+        this.scenario = scenario;
+        this.api = new ThermostatApiClient(scenario.getBaseUrl(), report.getServerTiming()::record);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] target = System.getProperty("load.coordinator", "127.0.0.1:" + Protocol.DEFAULT_PORT).split(":");
+        try (Socket socket = connect(target[0], Integer.parseInt(target[1]))) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            out.writeByte(Protocol.HELLO);
+            out.writeInt(Protocol.MAGIC);
+            out.writeUTF(InetAddress.getLocalHost().getHostName());
+            out.flush();
+
+            Protocol.expect(in.readByte(), Protocol.ASSIGN);
+            int index = in.readInt();
+            LoadScenario slice = LoadScenario.readFrom(in);
+            log.info("Worker {} assigned: {}", index, slice);
+
+            Protocol.expect(in.readByte(), Protocol.START);
+            Thread.sleep(in.readLong());
+
+            LoadReport result = new LoadWorker(slice).run();
+
+            out.writeByte(Protocol.REPORT);
+            result.writeTo(out);
+            out.flush();
+            log.info("Worker {} finished and reported", index);
+        }
+    }
+
+    /** Coordinators on other machines may come up later than their workers — retry for a while. */
+    private static Socket connect(String host, int port) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (true) {
+            try {
+                return new Socket(host, port);
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    // ── Running the scenario ─────────────────────────────────────────────────
+
+    /** Runs this worker's slice for the scenario duration and returns what it measured. */
+    public LoadReport run() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+        running = true;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < scenario.getSseConnections(); i++) {
+            openSse(scenario.thermostatIdFor(scenario.getPollers() + scenario.getPatchers() + i));
+        }
+        for (int i = 0; i < scenario.getPollers(); i++) {
+            schedulePoller(scheduler, i);
+        }
+        for (int i = 0; i < scenario.getPatchers(); i++) {
+            schedulePatcher(scheduler, scenario.getPollers() + i);
+        }
+        for (int i = 0; i < scenario.getListers(); i++) {
+            scheduleLister(scheduler, i);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(scenario.getDurationSeconds()));
+        running = false;
+        scheduler.shutdownNow();
+        report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        long drainDeadline = System.currentTimeMillis() + DRAIN_MILLIS;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        synchronized (sseSubscriptions) {
+            sseSubscriptions.forEach(Flow.Subscription::cancel);
+        }
+        return report;
+    }
+
+    /** Spreads first calls evenly across one interval so devices don't fire in lock-step. */
+    private long stagger(int device, int count, int intervalMs) {
+        return count == 0 ? 0 : (long) intervalMs * device / count;
+    }
+
+    private void schedulePoller(ScheduledExecutorService scheduler, int device) {
+        int id = scenario.thermostatIdFor(device);
+        AtomicLong since = new AtomicLong(System.currentTimeMillis());
+        OperationStats stats = report.operation("poll");
+        scheduler.scheduleAtFixedRate(() -> {
+            if (!running) return;
+            long t0 = System.nanoTime();
+            track(api.pollAsync(id, since.get()), stats, t0, response -> {
+                if (response.statusCode() == 304) {
+                    report.counter("poll.304").increment();
+                    return true;
+                }
+                if (response.statusCode() != 200) return false;
+                report.counter("poll.200").increment();
+                since.set(Instant.parse(JsonFields.getString(response.body(), "lastUpdated")).toEpochMilli());
+                return true;
+            });
+        }, stagger(device, scenario.getPollers(), scenario.getPollIntervalMs()),
+                scenario.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void schedulePatcher(ScheduledExecutorService scheduler, int device) {
+        int id = scenario.thermostatIdFor(device);
+        AtomicInteger step = new AtomicInteger(device);
+        OperationStats stats = report.operation("patch");
+        scheduler.scheduleAtFixedRate(() -> {
+            if (!running) return;
+            // Walk the set-point through 60..80 so every PATCH is a real change
+            int targetTemp = 60 + step.getAndIncrement() % 21;
+            long t0 = System.nanoTime();
+            track(api.patchAsync(id, "{\"targetTemp\":" + targetTemp + "}"), stats, t0, response -> {
+                if (response.statusCode() != 200) return false;
+                if (scenario.isReadAfterWrite()) readAfterWrite(id, response.body());
+                return true;
+            });
+        }, stagger(device - scenario.getPollers(), scenario.getPatchers(), scenario.getPatchIntervalMs()),
+                scenario.getPatchIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * GETs the thermostat a PATCH just wrote. Anything with an older lastUpdated
+     * than the PATCH response is counted as {@code stale.reads}.
+     */
+    private void readAfterWrite(int id, String patchBody) {
+        long written = Instant.parse(JsonFields.getString(patchBody, "lastUpdated")).toEpochMilli();
+        OperationStats stats = report.operation("read-after-write");
+        long t0 = System.nanoTime();
+        track(api.getAsync(id), stats, t0, response -> {
+            if (response.statusCode() != 200) return false;
+            long read = Instant.parse(JsonFields.getString(response.body(), "lastUpdated")).toEpochMilli();
+            report.counter(read < written ? "stale.reads" : "fresh.reads").increment();
+            return true;
+        });
+    }
+
+    private void scheduleLister(ScheduledExecutorService scheduler, int dashboard) {
+        OperationStats stats = report.operation("list");
+        scheduler.scheduleAtFixedRate(() -> {
+            if (!running) return;
+            long t0 = System.nanoTime();
+            track(api.listAsync(), stats, t0, response -> response.statusCode() == 200);
+        }, stagger(dashboard, scenario.getListers(), scenario.getListIntervalMs()),
+                scenario.getListIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private interface ResponseCheck {
+        boolean ok(HttpResponse<String> response);
+    }
+
+    private void track(CompletableFuture<HttpResponse<String>> call, OperationStats stats,
+                       long startNanos, ResponseCheck check) {
+        inFlight.incrementAndGet();
+        call.whenComplete((response, error) -> {
+            try {
+                if (error == null && check.ok(response)) {
+                    stats.recordSuccess(startNanos, utf8Length(response.body()));
+                } else {
+                    stats.recordError();
+                }
+            } catch (RuntimeException e) {
+                stats.recordError();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    // Body size on the wire — the String holds UTF-16 chars, the API sends UTF-8
+    static long utf8Length(String body) {
+        long bytes = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < body.length()
+                    && Character.isLowSurrogate(body.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    // ── SSE ──────────────────────────────────────────────────────────────────
+
+    private void openSse(int id) {
+        OperationStats connect = report.operation("sse.connect");
+        long t0 = System.nanoTime();
+        api.getHttpClient().sendAsync(
+                api.request("/api/thermostats/" + id + "/listen").GET().build(),
+                HttpResponse.BodyHandlers.fromLineSubscriber(new SseCounter(connect, t0)))
+                .whenComplete((response, error) -> {
+                    if (error != null && running) connect.recordError();
+                });
+    }
+
+    /**
+     * Counts SSE events line by line without buffering the stream.
+     * Time-to-"connected" is recorded as the connect latency.
+     */
+    private class SseCounter implements Flow.Subscriber<String> {
+
+        private final OperationStats connect;
+        private final long startNanos;
+        private boolean connected;
+
+        SseCounter(OperationStats connect, long startNanos) {
+            this.connect = connect;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (sseSubscriptions) {
+                sseSubscriptions.add(subscription);
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("event: ")) return;
+            String event = line.substring("event: ".length()).trim();
+            if (!connected && event.equals("connected")) {
+                connected = true;
+                connect.recordSuccess(startNanos, 0);
+            }
+            report.counter("sse." + event).increment();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (running) report.counter("sse.dropped").increment();
+        }
+
+        @Override
+        public void onComplete() {
+            if (running) report.counter("sse.dropped").increment();
+        }
+    }
+}
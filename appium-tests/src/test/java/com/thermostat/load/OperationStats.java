@@ -0,0 +1,66 @@
+package com.thermostat.load;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram plus error and byte counters for one kind of operation
+ * (e.g. "poll", "patch", "sse.connect").
+ *
+ * Successful calls go into the histogram; failures (exceptions or unexpected
+ * status codes) only bump the error counter so they don't skew latencies.
+ */
+public class OperationStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /** Records one successful call that started at {@code startNanos} and returned {@code responseBytes}. */
+    public void recordSuccess(long startNanos, long responseBytes) {
+        latency.recordSince(startNanos);
+        bytes.add(responseBytes);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getSuccessCount() {
+        return latency.getCount();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public void merge(OperationStats other) {
+        latency.merge(other.latency);
+        errors.add(other.errors.sum());
+        bytes.add(other.bytes.sum());
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        latency.writeTo(out);
+        out.writeLong(errors.sum());
+        out.writeLong(bytes.sum());
+    }
+
+    public static OperationStats readFrom(DataInput in) throws IOException {
+        OperationStats stats = new OperationStats();
+        stats.latency.merge(LatencyHistogram.readFrom(in));
+        stats.errors.add(in.readLong());
+        stats.bytes.add(in.readLong());
+        return stats;
+    }
+}
@@ -0,0 +1,37 @@
+package com.thermostat.load;
+
+/**
+ * Message tags for the coordinator ⇄ worker socket protocol.
+ *
+ * Every message is a one-byte tag followed by its payload, written with
+ * DataOutputStream (big-endian, UTF strings):
+ *
+ *   worker      → coordinator   HELLO   int magic, UTF hostname
+ *   coordinator → worker        ASSIGN  int workerIndex, LoadScenario
+ *   coordinator → worker        START   long delayMillis
+ *   worker      → coordinator   REPORT  LoadReport
+ *
+ * START carries a relative delay rather than a wall-clock timestamp so that
+ * workers on machines with skewed clocks still begin within one network
+ * round-trip of each other.
+ */
+final class Protocol {
+
+    static final int MAGIC = 0x54484C44; // "THLD"
+
+    static final byte HELLO = 1;
+    static final byte ASSIGN = 2;
+    static final byte START = 3;
+    static final byte REPORT = 4;
+
+    static final int DEFAULT_PORT = 7400;
+
+    private Protocol() {
+    }
+
+    static void expect(byte actual, byte expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("Protocol error: expected message " + expected + " but got " + actual);
+        }
+    }
+}
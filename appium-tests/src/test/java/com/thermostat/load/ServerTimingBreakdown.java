@@ -0,0 +1,144 @@
+package com.thermostat.load;
+
+import com.thermostat.utils.ServerTiming;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Per-endpoint, per-phase histograms built from the API's {@code Server-Timing} headers.
+ *
+ * Where {@link OperationStats} says how long a call took end to end, this says
+ * where the backend spent that time — e.g. for PATCH /api/thermostats/:id how much
+ * went to zod validation, to {@code ref.update} and to the extra {@code ref.get()}.
+ *
+ * Uses the same fixed-layout {@link LatencyHistogram}, so breakdowns from several
+ * workers merge exactly like the rest of the {@link LoadReport}.
+ */
+public class ServerTimingBreakdown {
+
+    private final Map<String, Map<String, LatencyHistogram>> endpoints = new ConcurrentSkipListMap<>();
+
+    /** Records every phase in {@code response}'s Server-Timing header under {@code endpoint}. */
+    public void record(String endpoint, HttpResponse<?> response) {
+        record(endpoint, ServerTiming.phases(response));
+    }
+
+    /** Records phase name → milliseconds under {@code endpoint}. */
+    public void record(String endpoint, Map<String, Double> phases) {
+        for (Map.Entry<String, Double> phase : phases.entrySet()) {
+            histogram(endpoint, phase.getKey()).recordMicros(Math.round(phase.getValue() * 1000));
+        }
+    }
+
+    public LatencyHistogram histogram(String endpoint, String phase) {
+        return endpoints.computeIfAbsent(endpoint, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(phase, k -> new LatencyHistogram());
+    }
+
+    public Map<String, Map<String, LatencyHistogram>> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Share of an endpoint's cached reads that never reached Firestore, or -1 if
+     * the endpoint doesn't go through the server's storage cache. Every cached
+     * read records either a {@code cache-hit} or a {@code cache-miss} phase.
+     */
+    public double getCacheHitRatio(String endpoint) {
+        Map<String, LatencyHistogram> phases = endpoints.get(endpoint);
+        if (phases == null) return -1;
+        LatencyHistogram hits = phases.get("cache-hit");
+        LatencyHistogram misses = phases.get("cache-miss");
+        long hitCount = hits == null ? 0 : hits.getCount();
+        long lookups = hitCount + (misses == null ? 0 : misses.getCount());
+        return lookups == 0 ? -1 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Fraction of the endpoint's server time spent in {@code phase}: the phase's
+     * summed time over the summed {@code total}. -1 without a total to compare with.
+     */
+    public double getShareOfTotal(String endpoint, String phase) {
+        Map<String, LatencyHistogram> phases = endpoints.get(endpoint);
+        LatencyHistogram total = phases == null ? null : phases.get("total");
+        LatencyHistogram h = phases == null ? null : phases.get(phase);
+        if (total == null || h == null || total.getCount() == 0 || total.getMeanMicros() == 0) return -1;
+        return h.getMeanMicros() * h.getCount() / (total.getMeanMicros() * total.getCount());
+    }
+
+    public boolean isEmpty() {
+        return endpoints.isEmpty();
+    }
+
+    public void merge(ServerTimingBreakdown other) {
+        other.endpoints.forEach((endpoint, phases) ->
+                phases.forEach((phase, h) -> histogram(endpoint, phase).merge(h)));
+    }
+
+    // ── Wire format ─────────────────────────────────────────────────────────
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(endpoints.size());
+        for (Map.Entry<String, Map<String, LatencyHistogram>> e : endpoints.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().size());
+            for (Map.Entry<String, LatencyHistogram> phase : e.getValue().entrySet()) {
+                out.writeUTF(phase.getKey());
+                phase.getValue().writeTo(out);
+            }
+        }
+    }
+
+    public static ServerTimingBreakdown readFrom(DataInput in) throws IOException {
+        ServerTimingBreakdown breakdown = new ServerTimingBreakdown();
+        int endpointCount = in.readInt();
+        for (int i = 0; i < endpointCount; i++) {
+            String endpoint = in.readUTF();
+            int phaseCount = in.readInt();
+            for (int p = 0; p < phaseCount; p++) {
+                String phase = in.readUTF();
+                breakdown.histogram(endpoint, phase).merge(LatencyHistogram.readFrom(in));
+            }
+        }
+        return breakdown;
+    }
+
+    // ── Formatting ──────────────────────────────────────────────────────────
+
+    /**
+     * One block per endpoint, one row per phase, with the phase's share of server
+     * total — plus the cache hit ratio for endpoints served through the cache.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Map<String, LatencyHistogram>> e : endpoints.entrySet()) {
+            sb.append(String.format("%s%n", e.getKey()));
+            sb.append(String.format("  %-14s %10s %9s %9s %9s %9s %7s%n",
+                    "phase", "samples", "mean ms", "p50 ms", "p99 ms", "max ms", "share"));
+            for (Map.Entry<String, LatencyHistogram> phase : e.getValue().entrySet()) {
+                LatencyHistogram h = phase.getValue();
+                double fraction = getShareOfTotal(e.getKey(), phase.getKey());
+                String share = fraction < 0 || phase.getKey().equals("total")
+                        ? ""
+                        : String.format("%.0f%%", 100 * fraction);
+                sb.append(String.format("  %-14s %10d %9.2f %9.2f %9.2f %9.2f %7s%n",
+                        phase.getKey(), h.getCount(),
+                        h.getMeanMicros() / 1000.0,
+                        h.getPercentileMicros(50) / 1000.0,
+                        h.getPercentileMicros(99) / 1000.0,
+                        h.getMaxMicros() / 1000.0,
+                        share));
+            }
+            double hitRatio = getCacheHitRatio(e.getKey());
+            if (hitRatio >= 0) {
+                sb.append(String.format("  cache hit ratio %.1f%%%n", 100 * hitRatio));
+            }
+        }
+        return sb.toString();
+    }
+}
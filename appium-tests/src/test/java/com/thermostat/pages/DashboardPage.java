@@ -2,6 +2,8 @@ package com.thermostat.pages;
 
 import com.thermostat.utils.Config;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
@@ -37,6 +39,7 @@ public class DashboardPage {
     private static final By SLIDER              = By.cssSelector("[data-testid='input-temp-slider']");
     private static final By SYSTEM_MODE_GROUP   = By.cssSelector("[data-testid='control-system-mode']");
     private static final By FAN_MODE_GROUP      = By.cssSelector("[data-testid='control-fan-mode']");
+    private static final By DIAL                = By.cssSelector("[data-testid='dial']");
 
     public DashboardPage(WebDriver driver) {
         this.driver = driver;
@@ -98,6 +101,14 @@ public class DashboardPage {
         return !driver.findElements(SLIDER).isEmpty();
     }
 
+    /**
+     * Screenshot of the dial (ring, target and indoor temperature, +/- buttons)
+     * as PNG bytes. Decode with {@link com.thermostat.visual.PixelImage#fromPng}.
+     */
+    public byte[] captureDial() {
+        return driver.findElement(DIAL).getScreenshotAs(OutputType.BYTES);
+    }
+
     // ── Actions ──────────────────────────────────────────────────────────────
 
     /** Click the + button once to raise target temperature by 1°. */
@@ -112,6 +123,22 @@ public class DashboardPage {
         return this;
     }
 
+    /**
+     * Drag the slider to {@code temp} without letting go: the dial redraws for
+     * the new target, but nothing is sent to the API (that happens on release).
+     * Lets a visual sweep walk all 41 temperatures without writing to the database.
+     */
+    public DashboardPage previewTargetTemp(int temp) {
+        // React ignores a plain value assignment — go through the native setter and fire 'input'
+        ((JavascriptExecutor) driver).executeScript(
+                "const slider = arguments[0];"
+                        + "Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set"
+                        + ".call(slider, arguments[1]);"
+                        + "slider.dispatchEvent(new Event('input', { bubbles: true }));",
+                driver.findElement(SLIDER), String.valueOf(temp));
+        return this;
+    }
+
     /**
      * Click a system mode button by its id: "heat", "cool", "auto", or "off".
      * Example: clickSystemMode("heat")
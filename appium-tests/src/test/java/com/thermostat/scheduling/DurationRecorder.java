@@ -0,0 +1,100 @@
+package com.thermostat.scheduling;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TestNG listener that records how long each test method occupies a worker into
+ * {@link TestDurationHistory}, so the {@link ScheduledSuiteRunner} can plan
+ * the next run from real numbers.
+ *
+ * The recorded time is the whole "slot": from the first @BeforeMethod (browser
+ * launch) through the test to the last @AfterMethod (state restore, browser quit).
+ * That is what a worker is actually busy for, and what the makespan depends on.
+ *
+ * Registered in testng.xml, so a normal {@code mvn test} keeps the history fresh.
+ * Skipped tests are not recorded — their duration says nothing about a real run.
+ * Neither are classes that don't open a browser: they never hold a worker slot.
+ */
+public class DurationRecorder implements IInvokedMethodListener, ISuiteListener {
+
+    /** What one thread is currently timing. */
+    private static class Slot {
+        long start = -1;
+        long end;
+        String key;
+    }
+
+    private final TestDurationHistory history;
+    private final List<Slot> slots = new ArrayList<>();
+    private final ThreadLocal<Slot> current = ThreadLocal.withInitial(() -> {
+        Slot slot = new Slot();
+        synchronized (slots) {
+            slots.add(slot);
+        }
+        return slot;
+    });
+
+    /** Used by TestNG when the listener is declared in testng.xml. */
+    public DurationRecorder() {
+        this(TestDurationHistory.load());
+    }
+
+    public DurationRecorder(TestDurationHistory history) {
+        this.history = history;
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+        if (!ScheduledSuiteRunner.usesBrowser(result.getTestClass().getRealClass())) return;
+        boolean slotBoundary = method.isTestMethod()
+                || method.getTestMethod().isBeforeMethodConfiguration();
+        if (!slotBoundary) return;
+
+        Slot slot = current.get();
+        if (slot.key != null) {
+            commit(slot);
+        }
+        if (slot.start < 0) {
+            slot.start = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!ScheduledSuiteRunner.usesBrowser(result.getTestClass().getRealClass())) return;
+        Slot slot = current.get();
+        if (method.isTestMethod()) {
+            if (result.getStatus() == ITestResult.SKIP) {
+                slot.start = -1;
+                return;
+            }
+            slot.key = TestDurationHistory.key(result.getTestClass().getName(), result.getMethod().getMethodName());
+            slot.end = System.currentTimeMillis();
+        } else if (slot.key != null && method.getTestMethod().isAfterMethodConfiguration()) {
+            slot.end = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        synchronized (slots) {
+            for (Slot slot : slots) {
+                if (slot.key != null) commit(slot);
+            }
+        }
+        history.save();
+    }
+
+    private void commit(Slot slot) {
+        history.record(slot.key, slot.end - slot.start);
+        slot.key = null;
+        slot.start = -1;
+    }
+}
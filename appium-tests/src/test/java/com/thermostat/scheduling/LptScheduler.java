@@ -0,0 +1,142 @@
+package com.thermostat.scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Longest-processing-time-first scheduling of test methods onto parallel workers.
+ *
+ * HOW IT WORKS:
+ *  - Tests are sorted by expected duration, longest first
+ *  - Whenever a worker becomes free it takes the longest test that may run now
+ *    (skipping tests whose exclusive group is already running)
+ *
+ * Taking work greedily as workers free up means the plan re-balances by itself
+ * when a test runs longer or shorter than history predicted. Starting with the
+ * longest tests leaves only short ones for the end, so workers finish close together.
+ *
+ * {@link #predict} runs the same policy in simulated time using the estimates,
+ * giving the makespan we expect before anything is executed.
+ */
+public final class LptScheduler {
+
+    private LptScheduler() {
+    }
+
+    /** Sorts longest first; ties broken by name so plans are reproducible. */
+    public static List<ScheduledTest> longestFirst(List<ScheduledTest> tests) {
+        List<ScheduledTest> sorted = new ArrayList<>(tests);
+        sorted.sort(Comparator.comparingLong(ScheduledTest::getEstimateMillis).reversed()
+                .thenComparing(ScheduledTest::key));
+        return sorted;
+    }
+
+    /**
+     * The longest remaining test that may start while {@code busyGroups} are running,
+     * or null if every remaining test is blocked. {@code remaining} must be sorted longest first.
+     */
+    static ScheduledTest pickNext(List<ScheduledTest> remaining, Set<String> busyGroups) {
+        for (ScheduledTest test : remaining) {
+            if (test.getExclusiveGroup() == null || !busyGroups.contains(test.getExclusiveGroup())) {
+                return test;
+            }
+        }
+        return null;
+    }
+
+    /** Simulated outcome of running {@code tests} on {@code workers} workers with the greedy LPT policy. */
+    public static Prediction predict(List<ScheduledTest> tests, int workers) {
+        List<ScheduledTest> remaining = longestFirst(tests);
+        List<List<ScheduledTest>> assignment = new ArrayList<>();
+        long[] freeAt = new long[workers];
+        for (int i = 0; i < workers; i++) assignment.add(new ArrayList<>());
+
+        // Running tests that hold an exclusive group, with their end times
+        List<ScheduledTest> holding = new ArrayList<>();
+        List<Long> holdingUntil = new ArrayList<>();
+
+        while (!remaining.isEmpty()) {
+            int worker = 0;
+            for (int i = 1; i < workers; i++) {
+                if (freeAt[i] < freeAt[worker]) worker = i;
+            }
+            long now = freeAt[worker];
+
+            Set<String> busyGroups = new HashSet<>();
+            long nextRelease = Long.MAX_VALUE;
+            for (int i = 0; i < holding.size(); i++) {
+                if (holdingUntil.get(i) > now) {
+                    busyGroups.add(holding.get(i).getExclusiveGroup());
+                    nextRelease = Math.min(nextRelease, holdingUntil.get(i));
+                }
+            }
+
+            ScheduledTest next = pickNext(remaining, busyGroups);
+            if (next == null) {
+                // Everything left is blocked — this worker idles until a group frees up
+                freeAt[worker] = nextRelease;
+                continue;
+            }
+            remaining.remove(next);
+            assignment.get(worker).add(next);
+            freeAt[worker] = now + next.getEstimateMillis();
+            if (next.getExclusiveGroup() != null) {
+                holding.add(next);
+                holdingUntil.add(freeAt[worker]);
+            }
+        }
+
+        long makespan = 0;
+        for (long t : freeAt) makespan = Math.max(makespan, t);
+        return new Prediction(assignment, makespan, lowerBound(tests, workers));
+    }
+
+    /** No schedule can beat max(total work / workers, longest test, longest exclusive group). */
+    static long lowerBound(List<ScheduledTest> tests, int workers) {
+        long total = 0;
+        long longest = 0;
+        Map<String, Long> groupTotals = new HashMap<>();
+        for (ScheduledTest test : tests) {
+            total += test.getEstimateMillis();
+            longest = Math.max(longest, test.getEstimateMillis());
+            if (test.getExclusiveGroup() != null) {
+                groupTotals.merge(test.getExclusiveGroup(), test.getEstimateMillis(), Long::sum);
+            }
+        }
+        long bound = Math.max((total + workers - 1) / workers, longest);
+        for (long groupTotal : groupTotals.values()) bound = Math.max(bound, groupTotal);
+        return bound;
+    }
+
+    /** Per-worker plan and the makespan it is expected to take. */
+    public static class Prediction {
+
+        private final List<List<ScheduledTest>> assignment;
+        private final long makespanMillis;
+        private final long lowerBoundMillis;
+
+        Prediction(List<List<ScheduledTest>> assignment, long makespanMillis, long lowerBoundMillis) {
+            this.assignment = assignment;
+            this.makespanMillis = makespanMillis;
+            this.lowerBoundMillis = lowerBoundMillis;
+        }
+
+        public List<List<ScheduledTest>> getAssignment() {
+            return assignment;
+        }
+
+        public long getMakespanMillis() {
+            return makespanMillis;
+        }
+
+        /** Best possible makespan for these estimates — how far the plan is from ideal. */
+        public long getLowerBoundMillis() {
+            return lowerBoundMillis;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.thermostat.scheduling;
+
+import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
+import com.thermostat.grid.SessionDispatcher;
+import com.thermostat.utils.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * ScheduledSuiteRunner — runs the suite's test methods on parallel workers,
+ * longest first, using durations recorded by previous runs.
+ *
+ * HOW IT WORKS:
+ *  1. Reads the test classes from testng.xml and finds their @Test methods.
+ *     Classes that don't open a browser (the tooling unit tests) run first, in
+ *     one plain TestNG run — they take no Appium slot, so they aren't scheduled
+ *  2. Looks up each method's expected duration in {@link TestDurationHistory}
+ *  3. Predicts the makespan by simulating the LPT policy ({@link LptScheduler#predict})
+ *  4. Starts -Dscheduler.workers workers; each repeatedly takes the longest test
+ *     that may run now and executes it in its own TestNG run (fresh class instance,
+ *     fresh browser session via SessionDispatcher)
+ *  5. Records the actual durations, then reports predicted vs actual makespan
+ *
+ * Every browser class works on its own thermostat ({@link TestThermostat}),
+ * and the methods of one thermostat share an exclusive group: clicking "off"
+ * or "+" in one of them would break an assertion, or a restore, in another.
+ * Different thermostats never conflict, so the classes overlap freely and the
+ * makespan is bounded below by the longest class, not by the suite. Classes
+ * marked read-only are in no group at all. Classes listed in
+ * -Dscheduler.exclusive (default: none) are put in one extra group together,
+ * e.g. to keep two classes apart that share something outside the app.
+ *
+ * Usage:
+ *  mvn test-compile exec:java -Dexec.classpathScope=test \
+ *      -Dexec.mainClass=com.thermostat.scheduling.ScheduledSuiteRunner -Dscheduler.workers=3
+ */
+public class ScheduledSuiteRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledSuiteRunner.class);
+
+    /** Exclusive group of the classes listed in -Dscheduler.exclusive. */
+    public static final String EXCLUSIVE_GROUP = "exclusive";
+
+    private final List<ScheduledTest> tests;
+    private final int workers;
+    private final TestDurationHistory history;
+
+    private final List<long[]> workerBusyMillis = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> failures = ConcurrentHashMap.newKeySet();
+
+    public ScheduledSuiteRunner(List<ScheduledTest> tests, int workers, TestDurationHistory history) {
+        this.tests = tests;
+        this.workers = workers;
+        this.history = history;
+    }
+
+    public static void main(String[] args) throws Exception {
+        TestDurationHistory history = TestDurationHistory.load();
+        Set<String> exclusive = Arrays.stream(System.getProperty("scheduler.exclusive", "").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        String suiteFile = System.getProperty("scheduler.suite", "testng.xml");
+        int workers = Integer.getInteger("scheduler.workers",
+                Config.APPIUM_SERVER_URLS.size() * Config.APPIUM_MAX_SESSIONS_PER_NODE);
+
+        List<Class<?>> classes = suiteClasses(suiteFile);
+        boolean passed = runWithoutBrowser(classes.stream().filter(c -> !usesBrowser(c)).toList());
+        List<ScheduledTest> tests = discover(classes.stream().filter(ScheduledSuiteRunner::usesBrowser).toList(),
+                history, exclusive);
+        passed &= new ScheduledSuiteRunner(tests, workers, history).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /** Every class listed in the suite file, in order. */
+    static List<Class<?>> suiteClasses(String suiteFile) throws Exception {
+        NodeList classNodes = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new File(suiteFile))
+                .getElementsByTagName("class");
+        List<Class<?>> classes = new ArrayList<>();
+        for (int i = 0; i < classNodes.getLength(); i++) {
+            classes.add(Class.forName(((Element) classNodes.item(i)).getAttribute("name")));
+        }
+        return classes;
+    }
+
+    /** True for test classes that borrow an Appium session for every method. */
+    public static boolean usesBrowser(Class<?> testClass) {
+        return BaseTest.class.isAssignableFrom(testClass);
+    }
+
+    /** Every @Test method of the given classes, with its estimate from history. */
+    public static List<ScheduledTest> discover(List<Class<?>> classes, TestDurationHistory history, Set<String> exclusive) {
+        List<ScheduledTest> tests = new ArrayList<>();
+        int unknown = 0;
+        for (Class<?> testClass : classes) {
+            String className = testClass.getName();
+            for (Method method : testClass.getMethods()) {
+                Test annotation = method.getAnnotation(Test.class);
+                if (annotation == null || !annotation.enabled()) continue;
+                String key = TestDurationHistory.key(className, method.getName());
+                if (!history.isKnown(key)) unknown++;
+                tests.add(new ScheduledTest(className, method.getName(), history.estimate(key),
+                        exclusiveGroup(testClass, exclusive)));
+            }
+        }
+        log.info("Discovered {} browser test methods ({} without recorded durations)", tests.size(), unknown);
+        return tests;
+    }
+
+    /**
+     * The group a class's methods may not overlap within: the forced
+     * {@link #EXCLUSIVE_GROUP}, else its thermostat's unless it only reads it.
+     * Browser classes without {@link TestThermostat} share the default thermostat.
+     */
+    public static String exclusiveGroup(Class<?> testClass, Set<String> exclusive) {
+        if (exclusive.contains(testClass.getName())) return EXCLUSIVE_GROUP;
+        TestThermostat fixture = testClass.getAnnotation(TestThermostat.class);
+        if (fixture != null) return fixture.readOnly() ? null : "thermostat-" + fixture.value();
+        return usesBrowser(testClass) ? "thermostat-" + TestThermostat.DEFAULT_ID : null;
+    }
+
+    /** Runs classes that need no browser in one TestNG run, before the scheduled part. */
+    static boolean runWithoutBrowser(List<Class<?>> classes) {
+        if (classes.isEmpty()) return true;
+        TestNG testng = new TestNG(false);
+        testng.setVerbose(0);
+        testng.setTestClasses(classes.toArray(new Class<?>[0]));
+        testng.run();
+        boolean passed = !testng.hasFailure() && !testng.hasSkip();
+        log.info("{} class(es) without a browser {}", classes.size(), passed ? "passed" : "FAILED");
+        return passed;
+    }
+
+    /** Runs every test; returns true if they all passed. */
+    public boolean run() throws InterruptedException {
+        LptScheduler.Prediction prediction = LptScheduler.predict(tests, workers);
+        log.info("Predicted makespan on {} worker(s): {} s (lower bound {} s)",
+                workers, seconds(prediction.getMakespanMillis()), seconds(prediction.getLowerBoundMillis()));
+        for (int w = 0; w < workers; w++) {
+            log.info("  planned worker {}: {}", w, prediction.getAssignment().get(w));
+        }
+
+        WorkQueue queue = new WorkQueue(tests);
+        AtomicInteger completed = new AtomicInteger();
+        long start = System.currentTimeMillis();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            long[] busy = new long[1];
+            workerBusyMillis.add(busy);
+            Thread thread = new Thread(() -> {
+                try {
+                    ScheduledTest test;
+                    while ((test = queue.take()) != null) {
+                        long t0 = System.currentTimeMillis();
+                        boolean ok = runOne(test);
+                        long took = System.currentTimeMillis() - t0;
+                        queue.done(test);
+                        busy[0] += took;
+                        history.record(test.key(), took);
+                        if (!ok) failures.add(test.key());
+                        log.info("[worker {}] {} {} in {} ms (expected {} ms) — {}/{} done",
+                                worker, ok ? "PASSED" : "FAILED", test.key(), took,
+                                test.getEstimateMillis(), completed.incrementAndGet(), tests.size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "scheduler-worker-" + w);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        long actual = System.currentTimeMillis() - start;
+        history.save();
+        report(prediction, actual);
+        return failures.isEmpty();
+    }
+
+    /** Runs a single test method through TestNG, exactly as the suite would. */
+    private boolean runOne(ScheduledTest test) {
+        XmlSuite suite = new XmlSuite();
+        suite.setName(test.key());
+        XmlTest xmlTest = new XmlTest(suite);
+        xmlTest.setName(test.key());
+        XmlClass xmlClass = new XmlClass(test.getClassName());
+        xmlClass.setIncludedMethods(List.of(new XmlInclude(test.getMethodName())));
+        xmlTest.setXmlClasses(List.of(xmlClass));
+
+        TestNG testng = new TestNG(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(List.of(suite));
+        testng.run();
+        return !testng.hasFailure() && !testng.hasSkip();
+    }
+
+    private void report(LptScheduler.Prediction prediction, long actualMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Scheduled run — %d test(s) on %d worker(s), %d failed%n",
+                tests.size(), workers, failures.size()));
+        sb.append(String.format("  predicted makespan: %8.1f s%n", seconds(prediction.getMakespanMillis())));
+        sb.append(String.format("  actual makespan:    %8.1f s%n", seconds(actualMillis)));
+        sb.append(String.format("  lower bound:        %8.1f s%n", seconds(prediction.getLowerBoundMillis())));
+        for (int w = 0; w < workerBusyMillis.size(); w++) {
+            long busy = workerBusyMillis.get(w)[0];
+            sb.append(String.format("  worker %d busy %8.1f s, idle %5.1f%%%n",
+                    w, seconds(busy), 100.0 * (actualMillis - busy) / Math.max(actualMillis, 1)));
+        }
+        failures.forEach(f -> sb.append("  FAILED ").append(f).append(System.lineSeparator()));
+        log.info("\n{}", sb);
+
+        if (SessionDispatcher.isStarted()) {
+            log.info("Appium node usage:\n{}", SessionDispatcher.shared().formatReport());
+        }
+    }
+
+    private static double seconds(long millis) {
+        return millis / 1000.0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.thermostat.scheduling;
+
+/**
+ * One test method to be scheduled, with its expected duration from history.
+ *
+ * Tests that share an {@code exclusiveGroup} never run at the same time —
+ * e.g. every test that writes the same thermostat: one clicking "off" while another
+ * presses "+" would break the other's assertions, or restore over its changes.
+ */
+public class ScheduledTest {
+
+    private final String className;
+    private final String methodName;
+    private final long estimateMillis;
+    private final String exclusiveGroup;
+
+    public ScheduledTest(String className, String methodName, long estimateMillis, String exclusiveGroup) {
+        this.className = className;
+        this.methodName = methodName;
+        this.estimateMillis = estimateMillis;
+        this.exclusiveGroup = exclusiveGroup;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String key() {
+        return TestDurationHistory.key(className, methodName);
+    }
+
+    public long getEstimateMillis() {
+        return estimateMillis;
+    }
+
+    /** Null when the test may run alongside anything. */
+    public String getExclusiveGroup() {
+        return exclusiveGroup;
+    }
+
+    @Override
+    public String toString() {
+        return className.substring(className.lastIndexOf('.') + 1) + "." + methodName + " (~" + estimateMillis + " ms)";
+    }
+}
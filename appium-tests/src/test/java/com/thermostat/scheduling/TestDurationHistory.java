@@ -0,0 +1,98 @@
+package com.thermostat.scheduling;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Remembers how long each test method took on previous runs.
+ *
+ * Stored as a plain properties file (class#method=millis) next to the pom, so it
+ * survives {@code mvn clean}. New measurements are blended into the old value
+ * (half old, half new) to smooth out one-off slow runs.
+ *
+ * Override the location with -Dtest.durations.file=path/to/file.properties
+ */
+public class TestDurationHistory {
+
+    /** Estimate used for a method that has never been timed, when there's no history at all. */
+    static final long DEFAULT_ESTIMATE_MILLIS = 5_000;
+
+    private final Path file;
+    private final Map<String, Long> durations = new TreeMap<>();
+
+    public TestDurationHistory(Path file) {
+        this.file = file;
+    }
+
+    /** Loads the history file configured by -Dtest.durations.file (default: test-durations.properties). */
+    public static TestDurationHistory load() {
+        TestDurationHistory history = new TestDurationHistory(
+                Paths.get(System.getProperty("test.durations.file", "test-durations.properties")));
+        history.read();
+        return history;
+    }
+
+    public static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    /** Reads the file if it exists; a missing file just means no history yet. */
+    public synchronized void read() {
+        if (!Files.exists(file)) return;
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read test durations from " + file, e);
+        }
+        for (String name : props.stringPropertyNames()) {
+            durations.put(name, Long.parseLong(props.getProperty(name).trim()));
+        }
+    }
+
+    public synchronized void save() {
+        Properties props = new Properties();
+        durations.forEach((k, v) -> props.setProperty(k, String.valueOf(v)));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                props.store(writer, "Per-method test durations (ms), maintained by DurationRecorder");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write test durations to " + file, e);
+        }
+    }
+
+    /** Blends a new measurement into the stored duration. */
+    public synchronized void record(String key, long millis) {
+        durations.merge(key, millis, (old, now) -> (old + now) / 2);
+    }
+
+    /**
+     * Expected duration for {@code key}. Unknown methods get the median of
+     * everything we know, so a new test is neither scheduled first nor last.
+     */
+    public synchronized long estimate(String key) {
+        Long known = durations.get(key);
+        if (known != null) return known;
+        if (durations.isEmpty()) return DEFAULT_ESTIMATE_MILLIS;
+        List<Long> all = new ArrayList<>(durations.values());
+        Collections.sort(all);
+        return all.get(all.size() / 2);
+    }
+
+    public synchronized boolean isKnown(String key) {
+        return durations.containsKey(key);
+    }
+}
@@ -0,0 +1,39 @@
+package com.thermostat.scheduling;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared queue the runner's workers pull tests from — the live version of
+ * {@link LptScheduler#predict}. A free worker always gets the longest test that
+ * may run right now; exclusive groups are held until {@link #done} is called.
+ */
+class WorkQueue {
+
+    private final List<ScheduledTest> remaining;
+    private final Set<String> busyGroups = new HashSet<>();
+
+    WorkQueue(List<ScheduledTest> tests) {
+        this.remaining = LptScheduler.longestFirst(tests);
+    }
+
+    /** Blocks until a test can start; returns null once everything has been handed out. */
+    synchronized ScheduledTest take() throws InterruptedException {
+        while (!remaining.isEmpty()) {
+            ScheduledTest next = LptScheduler.pickNext(remaining, busyGroups);
+            if (next != null) {
+                remaining.remove(next);
+                if (next.getExclusiveGroup() != null) busyGroups.add(next.getExclusiveGroup());
+                return next;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    synchronized void done(ScheduledTest test) {
+        if (test.getExclusiveGroup() != null) busyGroups.remove(test.getExclusiveGroup());
+        notifyAll();
+    }
+}
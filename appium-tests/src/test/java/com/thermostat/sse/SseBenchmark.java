@@ -0,0 +1,141 @@
+package com.thermostat.sse;
+
+import com.thermostat.codec.ThermostatState;
+import com.thermostat.load.LatencyHistogram;
+import com.thermostat.utils.Config;
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SseBenchmark — measures the delta SSE stream with a {@link ThermostatMirror}.
+ *
+ * 1. BYTES PER UPDATE: sends N PATCHes one at a time and waits for each to
+ *    reach the mirror. Compares the size of an update event with a full
+ *    snapshot event (which is what every change used to cost), and records
+ *    PATCH → applied propagation latency.
+ * 2. RECONNECT COST: for each gap size, drops the stream, sends that many
+ *    PATCHes while offline, then reconnects — once resuming with
+ *    Last-Event-ID, once starting over from a snapshot — and measures time and
+ *    bytes until the mirror holds the final state.
+ *
+ * After every phase the mirror is checked for lost events (id holes) and
+ * compared field by field with a fresh GET.
+ *
+ * HOW TO RUN (against a running app):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.thermostat.sse.SseBenchmark
+ *
+ *   -Dsse.thermostat.id   thermostat to stream (default 1)
+ *   -Dsse.updates         PATCHes for the bytes-per-update phase (default 50)
+ *   -Dsse.gaps            PATCHes missed while offline, per reconnect round (default 1,10,50)
+ *
+ * The thermostat's targetTemp is restored afterwards.
+ */
+public class SseBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SseBenchmark.class);
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int id = Integer.getInteger("sse.thermostat.id", 1);
+        int updateCount = Integer.getInteger("sse.updates", 50);
+        int[] gapSizes = Arrays.stream(System.getProperty("sse.gaps", "1,10,50").split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).mapToInt(Integer::parseInt).toArray();
+
+        ThermostatApiClient api = new ThermostatApiClient(Config.APP_BASE_URL);
+        int originalTarget = JsonFields.getInt(api.get(id).body(), "targetTemp");
+        log.info("Snapshot — thermostat {} targetTemp {}", id, originalTarget);
+
+        StringBuilder sb = new StringBuilder();
+        try (ThermostatMirror mirror = new ThermostatMirror(api, id)) {
+            mirror.connect(false);
+            if (!mirror.awaitState(s -> s.getPresentMask() != 0, TIMEOUT_MILLIS)) {
+                throw new IllegalStateException("No snapshot from /listen within " + TIMEOUT_MILLIS + " ms");
+            }
+            long snapshotBytes = mirror.getSnapshotBytes();
+
+            // ── 1. Bytes per update ──
+            LatencyHistogram propagation = new LatencyHistogram();
+            for (int i = 0; i < updateCount; i++) {
+                long t0 = System.nanoTime();
+                Expected expected = patch(api, id, 60 + i % 21);
+                if (!mirror.awaitState(expected::matches, TIMEOUT_MILLIS)) {
+                    throw new IllegalStateException("Update " + i + " never reached the mirror");
+                }
+                propagation.recordSince(t0);
+            }
+            long updateBytes = mirror.getUpdateBytes() / Math.max(1, mirror.getUpdates());
+            sb.append(String.format("Updates: %d, %d B per update event vs %d B per full snapshot (%.0f%% less)%n",
+                    mirror.getUpdates(), updateBytes, snapshotBytes,
+                    100.0 * (snapshotBytes - updateBytes) / snapshotBytes));
+            sb.append(String.format("PATCH → applied: p50 %.1f ms, p99 %.1f ms%n",
+                    propagation.getPercentileMicros(50) / 1000.0, propagation.getPercentileMicros(99) / 1000.0));
+            sb.append(consistency(mirror));
+
+            // ── 2. Reconnect cost ──
+            sb.append(String.format("%n%-10s %-9s %10s %10s %10s%n", "missed", "mode", "ms", "bytes", "events"));
+            for (int gap : gapSizes) {
+                for (boolean resume : new boolean[]{true, false}) {
+                    mirror.disconnect();
+                    Expected expected = null;
+                    for (int i = 0; i < gap; i++) expected = patch(api, id, 60 + i % 21);
+
+                    long eventsBefore = mirror.getUpdates() + mirror.getSnapshots();
+                    long t0 = System.nanoTime();
+                    mirror.connect(resume);
+                    if (!mirror.awaitState(expected::matches, TIMEOUT_MILLIS)) {
+                        throw new IllegalStateException("Mirror never caught up after missing " + gap + " updates");
+                    }
+                    sb.append(String.format("%-10d %-9s %10.1f %10d %10d%n",
+                            gap, resume ? "resume" : "snapshot", (System.nanoTime() - t0) / 1e6,
+                            mirror.getConnectionBytes(), mirror.getUpdates() + mirror.getSnapshots() - eventsBefore));
+                }
+            }
+            sb.append(consistency(mirror));
+        } finally {
+            api.patch(id, "{\"targetTemp\":" + originalTarget + "}");
+            log.info("Restored — thermostat {} targetTemp {}", id, originalTarget);
+        }
+        log.info("Delta SSE benchmark, thermostat {}\n{}", id, sb);
+    }
+
+    /** The state a PATCH produced — the mirror has caught up once it matches. */
+    private static class Expected {
+        final int targetTemp;
+        final long lastUpdatedMillis;
+
+        Expected(int targetTemp, long lastUpdatedMillis) {
+            this.targetTemp = targetTemp;
+            this.lastUpdatedMillis = lastUpdatedMillis;
+        }
+
+        boolean matches(ThermostatState s) {
+            return s.getTargetTemp() == targetTemp && s.getLastUpdatedMillis() == lastUpdatedMillis;
+        }
+    }
+
+    private static Expected patch(ThermostatApiClient api, int id, int targetTemp)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = api.patch(id, "{\"targetTemp\":" + targetTemp + "}");
+        if (response.statusCode() != 200) {
+            throw new IOException("PATCH returned " + response.statusCode() + ": " + response.body());
+        }
+        long lastUpdated = Instant.parse(JsonFields.getString(response.body(), "lastUpdated")).toEpochMilli();
+        return new Expected(targetTemp, lastUpdated);
+    }
+
+    private static String consistency(ThermostatMirror mirror) throws IOException, InterruptedException {
+        List<String> mismatches = mirror.verify();
+        return String.format("Consistency: %d lost event(s), %s%n", mirror.getGaps(),
+                mismatches.isEmpty() ? "local copy matches GET" : "MISMATCH " + mismatches);
+    }
+}
@@ -0,0 +1,45 @@
+package com.thermostat.sse;
+
+/**
+ * One Server-Sent Event as it came off the wire.
+ *
+ * {@code id} is null when the event carried no {@code id:} field (e.g. pings);
+ * {@code type} defaults to "message" as in the SSE spec. {@code wireBytes}
+ * counts every line received since the previous event, newlines included —
+ * what it cost to send.
+ */
+public class SseEvent {
+
+    private final String id;
+    private final String type;
+    private final String data;
+    private final int wireBytes;
+
+    public SseEvent(String id, String type, String data, int wireBytes) {
+        this.id = id;
+        this.type = type;
+        this.data = data;
+        this.wireBytes = wireBytes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public int getWireBytes() {
+        return wireBytes;
+    }
+
+    @Override
+    public String toString() {
+        return (id != null ? "#" + id + " " : "") + type + " " + data;
+    }
+}
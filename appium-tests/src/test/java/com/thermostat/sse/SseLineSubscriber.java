@@ -0,0 +1,106 @@
+package com.thermostat.sse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Turns the lines of a {@code text/event-stream} body into {@link SseEvent}s.
+ *
+ * Plug it into {@code HttpResponse.BodyHandlers.fromLineSubscriber(...)}.
+ * Handles the fields the API sends — {@code id}, {@code event}, {@code data}
+ * (multi-line data is joined with '\n') and {@code retry}; comment lines are
+ * skipped. {@code onClose} runs once when the stream ends for any reason.
+ */
+public class SseLineSubscriber implements Flow.Subscriber<String> {
+
+    private final Consumer<SseEvent> onEvent;
+    private final Consumer<Throwable> onClose;
+
+    private Flow.Subscription subscription;
+    private String id;
+    private String type;
+    private StringBuilder data;
+    private int bytes;
+    private volatile long retryMillis = -1;
+
+    /** {@code onClose} receives the error, or null when the server ended the stream. */
+    public SseLineSubscriber(Consumer<SseEvent> onEvent, Consumer<Throwable> onClose) {
+        this.onEvent = onEvent;
+        this.onClose = onClose;
+    }
+
+    /** Reconnect delay the server asked for with {@code retry:}, or -1. */
+    public long getRetryMillis() {
+        return retryMillis;
+    }
+
+    /** Stops reading — the HTTP client closes the connection. */
+    public void cancel() {
+        Flow.Subscription s = subscription;
+        if (s != null) s.cancel();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (line.isEmpty()) {
+            dispatch();
+            return;
+        }
+        if (line.startsWith(":")) return;
+
+        int colon = line.indexOf(':');
+        String field = colon < 0 ? line : line.substring(0, colon);
+        String value = colon < 0 ? "" : line.substring(colon + 1);
+        if (value.startsWith(" ")) value = value.substring(1);
+
+        switch (field) {
+            case "id":
+                id = value;
+                break;
+            case "event":
+                type = value;
+                break;
+            case "data":
+                if (data == null) data = new StringBuilder(value);
+                else data.append('\n').append(value);
+                break;
+            case "retry":
+                try {
+                    retryMillis = Long.parseLong(value.trim());
+                } catch (NumberFormatException ignored) {
+                    // The spec says to ignore a malformed retry
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void dispatch() {
+        if (data != null) {
+            onEvent.accept(new SseEvent(id, type != null ? type : "message", data.toString(), bytes));
+        }
+        id = null;
+        type = null;
+        data = null;
+        bytes = 0;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        onClose.accept(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        onClose.accept(null);
+    }
+}
@@ -0,0 +1,252 @@
+package com.thermostat.sse;
+
+import com.thermostat.codec.ThermostatJson;
+import com.thermostat.codec.ThermostatState;
+import com.thermostat.utils.ThermostatApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a local copy of one thermostat in sync from its SSE stream
+ * ({@code GET /api/thermostats/:id/listen}) — what a device does.
+ *
+ * EVENTS:
+ *  - snapshot  full thermostat, replaces the local copy
+ *  - update    changed fields only, merged into the local copy
+ *
+ * CONSISTENCY:
+ * Event ids are {@code <epoch>-<seq>}; update ids must follow each other
+ * without holes (same epoch, seq = previous seq + 1). A hole, a change of
+ * epoch without a snapshot, or an update arriving before any snapshot means an
+ * event was lost; it is counted in {@link #getGaps()}. {@link #verify()}
+ * additionally compares the local copy field by field with a fresh GET.
+ *
+ * RECONNECTING:
+ * When the stream drops, the mirror reconnects after the server's
+ * {@code retry:} delay and sends {@code Last-Event-ID}, so it only receives
+ * what it missed.
+ */
+public class ThermostatMirror implements Consumer<SseEvent>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ThermostatMirror.class);
+
+    private static final long DEFAULT_RETRY_MILLIS = 2000;
+
+    private final ThermostatApiClient api;
+    private final int thermostatId;
+    private final ThermostatState state = new ThermostatState();
+    private final ThermostatState scratch = new ThermostatState();
+
+    private String lastEventId;
+    private SseLineSubscriber connection;
+    private int generation;
+    private boolean autoReconnect;
+    private boolean closed;
+
+    private long snapshots;
+    private long snapshotBytes;
+    private long updates;
+    private long updateBytes;
+    private long connectionBytes;
+    private long gaps;
+    private long reconnects;
+
+    public ThermostatMirror(ThermostatApiClient api, int thermostatId) {
+        this.api = api;
+        this.thermostatId = thermostatId;
+    }
+
+    /**
+     * Opens the stream. With {@code resume} the last seen event id is sent as
+     * Last-Event-ID; without it the server starts over with a snapshot.
+     * A dropped stream is reconnected automatically until {@link #disconnect} or {@link #close}.
+     */
+    public synchronized void connect(boolean resume) {
+        if (closed) throw new IllegalStateException("Mirror is closed");
+        disconnectQuietly();
+        autoReconnect = true;
+        connectionBytes = 0;
+
+        int gen = ++generation;
+        HttpRequest.Builder request = api.request("/api/thermostats/" + thermostatId + "/listen")
+                .header("Accept", "text/event-stream")
+                .GET();
+        if (resume && lastEventId != null) request.header("Last-Event-ID", lastEventId);
+
+        SseLineSubscriber subscriber = new SseLineSubscriber(
+                event -> acceptFrom(gen, event), error -> onStreamClosed(gen, error));
+        connection = subscriber;
+        CompletableFuture<HttpResponse<Void>> response = api.getHttpClient()
+                .sendAsync(request.build(), HttpResponse.BodyHandlers.fromLineSubscriber(subscriber));
+        response.whenComplete((r, error) -> {
+            // Connect failures never reach the subscriber
+            if (error != null) onStreamClosed(gen, error);
+        });
+    }
+
+    /** Drops the stream without reconnecting — e.g. to simulate a device going offline. */
+    public synchronized void disconnect() {
+        autoReconnect = false;
+        disconnectQuietly();
+    }
+
+    private void disconnectQuietly() {
+        generation++;
+        if (connection != null) connection.cancel();
+        connection = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+        closed = true;
+    }
+
+    private synchronized void onStreamClosed(int gen, Throwable error) {
+        if (gen != generation || !autoReconnect || closed) return;
+        long retry = connection != null && connection.getRetryMillis() >= 0
+                ? connection.getRetryMillis() : DEFAULT_RETRY_MILLIS;
+        connection = null;
+        reconnects++;
+        log.info("Stream for thermostat {} dropped ({}), reconnecting in {} ms from event {}",
+                thermostatId, error != null ? error.toString() : "closed by server", retry, lastEventId);
+        CompletableFuture.runAsync(() -> {
+            synchronized (this) {
+                if (gen == generation && autoReconnect && !closed) connect(true);
+            }
+        }, CompletableFuture.delayedExecutor(retry, TimeUnit.MILLISECONDS));
+    }
+
+    // ── Applying events ──────────────────────────────────────────────────────
+
+    // A cancelled connection can still deliver a line or two — ignore anything but the current one
+    private synchronized void acceptFrom(int gen, SseEvent event) {
+        if (gen == generation) accept(event);
+    }
+
+    @Override
+    public synchronized void accept(SseEvent event) {
+        connectionBytes += event.getWireBytes();
+        switch (event.getType()) {
+            case "snapshot":
+                ThermostatJson.read(event.getData(), scratch);
+                state.clear().apply(scratch);
+                snapshots++;
+                snapshotBytes += event.getWireBytes();
+                break;
+            case "update":
+                if (state.getPresentMask() == 0 || !follows(event.getId())) gaps++;
+                ThermostatJson.read(event.getData(), scratch);
+                state.apply(scratch);
+                updates++;
+                updateBytes += event.getWireBytes();
+                break;
+            default:
+                // connected / ping carry no state
+                return;
+        }
+        if (event.getId() != null) lastEventId = event.getId();
+        notifyAll();
+    }
+
+    private boolean follows(String id) {
+        if (id == null || lastEventId == null) return false;
+        int dash = id.lastIndexOf('-');
+        int lastDash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || dash != lastDash || !id.regionMatches(0, lastEventId, 0, dash)) return false;
+        try {
+            return Long.parseLong(id.substring(dash + 1)) == Long.parseLong(lastEventId.substring(lastDash + 1)) + 1;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Waits until the local copy satisfies {@code condition}. Returns false on timeout. */
+    public synchronized boolean awaitState(Predicate<ThermostatState> condition, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.test(state)) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    /** Fetches the thermostat and lists every field where the local copy disagrees (empty = consistent). */
+    public List<String> verify() throws IOException, InterruptedException {
+        HttpResponse<String> response = api.get(thermostatId);
+        if (response.statusCode() != 200) {
+            throw new IOException("GET thermostat " + thermostatId + " returned " + response.statusCode());
+        }
+        return verifyAgainst(response.body());
+    }
+
+    /** Compares the local copy with a full thermostat JSON document. */
+    public synchronized List<String> verifyAgainst(String json) {
+        ThermostatState remote = ThermostatJson.read(json, new ThermostatState());
+        List<String> mismatches = new ArrayList<>();
+        compare(mismatches, "name", state.getName(), remote.getName());
+        compare(mismatches, "currentTemp", state.getCurrentTemp(), remote.getCurrentTemp());
+        compare(mismatches, "targetTemp", state.getTargetTemp(), remote.getTargetTemp());
+        compare(mismatches, "systemMode", state.getSystemMode(), remote.getSystemMode());
+        compare(mismatches, "fanMode", state.getFanMode(), remote.getFanMode());
+        compare(mismatches, "currentHumidity", state.getCurrentHumidity(), remote.getCurrentHumidity());
+        compare(mismatches, "lastUpdated", state.getLastUpdatedMillis(), remote.getLastUpdatedMillis());
+        return mismatches;
+    }
+
+    private static void compare(List<String> mismatches, String field, Object local, Object remote) {
+        if (!local.equals(remote)) mismatches.add(field + ": local " + local + ", server " + remote);
+    }
+
+    // ── Stats ────────────────────────────────────────────────────────────────
+
+    /** The local copy. Only read it while holding the mirror's lock, or after {@link #awaitState}. */
+    public ThermostatState getState() {
+        return state;
+    }
+
+    public synchronized String getLastEventId() {
+        return lastEventId;
+    }
+
+    public synchronized long getSnapshots() {
+        return snapshots;
+    }
+
+    public synchronized long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    public synchronized long getUpdates() {
+        return updates;
+    }
+
+    public synchronized long getUpdateBytes() {
+        return updateBytes;
+    }
+
+    /** Bytes received on the current connection, counted from {@link #connect}. */
+    public synchronized long getConnectionBytes() {
+        return connectionBytes;
+    }
+
+    public synchronized long getGaps() {
+        return gaps;
+    }
+
+    public synchronized long getReconnects() {
+        return reconnects;
+    }
+}
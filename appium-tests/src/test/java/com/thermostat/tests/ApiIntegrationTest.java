@@ -1,6 +1,7 @@
 package com.thermostat.tests;
 
 import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
 import com.thermostat.pages.DashboardPage;
 import com.thermostat.utils.Config;
 import org.testng.Assert;
@@ -27,13 +28,14 @@ import java.net.http.HttpResponse;
  *  This means the database ends up in exactly the same state it started in.
  *
  * HOW IT WORKS:
- *  1. Snapshot — read current targetTemp + systemMode from the API
+ *  1. Snapshot — read the class's thermostat's targetTemp + systemMode from the API
  *  2. Open the app in the browser (via Appium/WebDriver)
  *  3. Perform a UI action (e.g. click +)
  *  4. Wait for the debounce + network round-trip to complete
  *  5. Assert the API response reflects the change
  *  6. Restore — PATCH the original values back, regardless of pass/fail
  */
+@TestThermostat(104)
 public class ApiIntegrationTest extends BaseTest {
 
     private final HttpClient http = HttpClient.newHttpClient();
@@ -63,7 +65,7 @@ public class ApiIntegrationTest extends BaseTest {
 
         http.send(
                 HttpRequest.newBuilder()
-                        .uri(URI.create(Config.APP_BASE_URL + "/api/thermostats/1"))
+                        .uri(URI.create(Config.APP_BASE_URL + "/api/thermostats/" + thermostatId))
                         .header("Content-Type", "application/json")
                         .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
                         .build(),
@@ -170,7 +172,7 @@ public class ApiIntegrationTest extends BaseTest {
     private String fetchApiBody() throws IOException, InterruptedException {
         HttpResponse<String> response = http.send(
                 HttpRequest.newBuilder()
-                        .uri(URI.create(Config.APP_BASE_URL + "/api/thermostats"))
+                        .uri(URI.create(Config.APP_BASE_URL + "/api/thermostats/" + thermostatId))
                         .GET()
                         .build(),
                 HttpResponse.BodyHandlers.ofString()
@@ -0,0 +1,205 @@
+package com.thermostat.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thermostat.bulk.BulkUpdateClient;
+import com.thermostat.bulk.BulkUpdateResult;
+import com.thermostat.bulk.ThermostatChange;
+import com.thermostat.utils.ThermostatApiClient;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BulkUpdateClientTest
+ *
+ * Unit tests for the bulk client's batch sizing and response handling. The
+ * bulk endpoint is played by a local in-process HTTP server, so no browser or
+ * thermostat server is needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Change sets are split evenly so every pipeline slot gets a batch
+ *  - No batch goes over the server's 500-item cap
+ *  - Tiny change sets don't produce empty batches
+ *  - A mixed 200/400/404 response gives each change its own status, whatever the key order
+ *  - A failed request, an unreadable response or no response fails every change in its batch
+ *  - Results stay in change-set order when batches complete out of order
+ */
+public class BulkUpdateClientTest {
+
+    private static final Pattern UPDATE_ID = Pattern.compile("\\{\"id\":(\\d+),\"changes\"");
+
+    private static BulkUpdateClient client(int maxInFlight) {
+        return new BulkUpdateClient(new ThermostatApiClient("http://localhost:0"), maxInFlight);
+    }
+
+    /** A bulk endpoint that answers each request with {@code status} and whatever {@code respond} makes of its ids. */
+    private static final class FakeBulkEndpoint implements AutoCloseable {
+        final HttpServer server;
+        final List<List<Integer>> requests = new ArrayList<>();
+
+        FakeBulkEndpoint(int status, Function<List<Integer>, String> respond) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/api/thermostats", exchange -> handle(exchange, status, respond));
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange, int status, Function<List<Integer>, String> respond)
+                throws IOException {
+            List<Integer> ids = new ArrayList<>();
+            Matcher m = UPDATE_ID.matcher(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            while (m.find()) ids.add(Integer.parseInt(m.group(1)));
+            synchronized (requests) {
+                requests.add(ids);
+            }
+            byte[] body = respond.apply(ids).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        BulkUpdateClient client(int maxInFlight) {
+            return new BulkUpdateClient(
+                    new ThermostatApiClient("http://127.0.0.1:" + server.getAddress().getPort()), maxInFlight);
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    private static List<ThermostatChange> changes(int count) {
+        List<ThermostatChange> changes = new ArrayList<>();
+        for (int id = 1; id <= count; id++) changes.add(ThermostatChange.targetTemp(id, 60 + id));
+        return changes;
+    }
+
+    private static void assertAllFailed(List<BulkUpdateResult> results, int count, int status, String bodyPart) {
+        Assert.assertEquals(results.size(), count);
+        for (int i = 0; i < count; i++) {
+            BulkUpdateResult result = results.get(i);
+            Assert.assertEquals(result.getChange().getId(), i + 1);
+            Assert.assertEquals(result.getStatus(), status, result.toString());
+            Assert.assertFalse(result.isSuccess());
+            Assert.assertTrue(result.getJson().contains(bodyPart), result.toString());
+        }
+    }
+
+    @Test(description = "A change set is spread evenly over the pipeline slots")
+    public void testFillsPipeline() {
+        Assert.assertEquals(client(8).batchSizeFor(1000), 125);
+        Assert.assertEquals(client(4).batchSizeFor(1001), 251);
+    }
+
+    @Test(description = "Batches never exceed the server cap")
+    public void testServerCap() {
+        BulkUpdateClient client = client(2);
+
+        Assert.assertEquals(client.batchSizeFor(5000), BulkUpdateClient.MAX_BATCH_SIZE);
+        Assert.assertEquals(client.batchSizeFor(1001), 334);
+    }
+
+    @Test(description = "Fewer changes than slots means one change per request")
+    public void testSmallChangeSet() {
+        Assert.assertEquals(client(8).batchSizeFor(3), 1);
+        Assert.assertEquals(client(8).batchSizeFor(0), 1);
+    }
+
+    @Test(description = "Each change in a mixed 200/400/404 response gets its own status and item")
+    public void testMixedResults() throws Exception {
+        String response = "{ \"results\" : [\n"
+                + "  {\"status\":200,\"id\":1,\"thermostat\":{\"id\":1,\"name\":\"Den, \\\"north\\\"\",\"targetTemp\":61}},\n"
+                + "  {\"message\":\"Expected number, received string {\\\"status\\\":200,\",\"status\": 400},\n"
+                + "  {\"id\":3, \"status\":404, \"message\":\"Thermostat not found\"}\n"
+                + "] }";
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(200, ids -> response)) {
+            List<BulkUpdateResult> results = endpoint.client(1).apply(changes(3), 3);
+
+            Assert.assertEquals(results.size(), 3);
+            Assert.assertEquals(results.get(0).getStatus(), 200);
+            Assert.assertTrue(results.get(0).isSuccess());
+            Assert.assertTrue(results.get(0).getJson().endsWith("\"targetTemp\":61}}"), results.get(0).getJson());
+            Assert.assertEquals(results.get(1).getStatus(), 400, "the status after the message counts, not the one quoted in it");
+            Assert.assertTrue(results.get(1).getJson().startsWith("{\"message\":\"Expected number"), results.get(1).getJson());
+            Assert.assertEquals(results.get(2).getStatus(), 404);
+            Assert.assertEquals(results.get(2).getJson(), "{\"id\":3, \"status\":404, \"message\":\"Thermostat not found\"}");
+        }
+    }
+
+    @Test(description = "A failed request fails every change in the batch with its status")
+    public void testWholeRequestFailure() throws Exception {
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(400,
+                ids -> "{\"message\":\"Array must contain at most 500 element(s)\",\"field\":\"updates\"}")) {
+            assertAllFailed(endpoint.client(2).apply(changes(4), 2), 4, 400, "at most 500");
+        }
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(500, ids -> "{\"message\":\"Internal Server Error\"}")) {
+            assertAllFailed(endpoint.client(2).apply(changes(4), 2), 4, 500, "Internal Server Error");
+        }
+    }
+
+    @Test(description = "An unreadable response or a transport error fails every change with status 0")
+    public void testUnreadableResponseAndTransportError() throws Exception {
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(200, ids -> "{\"results\":[{\"status\":200")) {
+            assertAllFailed(endpoint.client(1).apply(changes(3), 3), 3, 0, "message");
+        }
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(200, ids -> "{\"results\":[{\"status\":200,\"id\":1}]}")) {
+            assertAllFailed(endpoint.client(1).apply(changes(3), 3), 3, 0, "expected 3 results, got 1");
+        }
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(200, ids -> "{\"results\":[{\"id\":1},{\"id\":2}]}")) {
+            assertAllFailed(endpoint.client(1).apply(changes(2), 2), 2, 0, "without a status");
+        }
+
+        FakeBulkEndpoint closed = new FakeBulkEndpoint(200, ids -> "{\"results\":[]}");
+        BulkUpdateClient client = closed.client(2);
+        closed.close();
+        assertAllFailed(client.apply(changes(3), 2), 3, 0, "message");
+    }
+
+    @Test(description = "Results stay in change-set order when batches complete out of order")
+    public void testOrderAcrossBatches() throws Exception {
+        // Earlier batches answer later, so completions arrive in reverse order
+        Function<List<Integer>, String> respond = ids -> {
+            try {
+                Thread.sleep(Math.max(0, 200 - ids.get(0) * 10L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder sb = new StringBuilder("{\"results\":[");
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                if (i > 0) sb.append(',');
+                sb.append(id % 5 == 0
+                        ? "{\"status\":404,\"id\":" + id + ",\"message\":\"Thermostat not found\"}"
+                        : "{\"status\":200,\"id\":" + id + ",\"thermostat\":{\"id\":" + id + "}}");
+            }
+            return sb.append("]}").toString();
+        };
+        try (FakeBulkEndpoint endpoint = new FakeBulkEndpoint(200, respond)) {
+            List<BulkUpdateResult> results = endpoint.client(4).apply(changes(14), 3);
+
+            Assert.assertEquals(endpoint.requests.size(), 5, "14 changes in batches of 3");
+            Assert.assertEquals(results.size(), 14);
+            for (int i = 0; i < results.size(); i++) {
+                int id = i + 1;
+                BulkUpdateResult result = results.get(i);
+                Assert.assertEquals(result.getChange().getId(), id);
+                Assert.assertEquals(result.getStatus(), id % 5 == 0 ? 404 : 200, result.toString());
+                Assert.assertTrue(result.getJson().contains("\"id\":" + id + ","), result.toString());
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.thermostat.tests;
 
 import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
 import com.thermostat.pages.DashboardPage;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -11,7 +12,11 @@ import org.testng.annotations.Test;
  * Verifies that the thermostat dashboard loads correctly and displays
  * all expected UI sections. These are "smoke tests" — run them first
  * to confirm the app is reachable before running deeper feature tests.
+ *
+ * Its thermostat is seeded in cool mode and nothing writes it, so the
+ * +/- buttons are always shown and the checks never depend on another test.
  */
+@TestThermostat(value = 106, readOnly = true)
 public class DashboardLoadTest extends BaseTest {
 
     @Test(description = "Dashboard renders without errors after page load")
@@ -0,0 +1,213 @@
+package com.thermostat.tests;
+
+import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
+import com.thermostat.pages.DashboardPage;
+import com.thermostat.utils.Config;
+import com.thermostat.utils.JsonFields;
+import com.thermostat.utils.ThermostatApiClient;
+import com.thermostat.visual.BaselinePack;
+import com.thermostat.visual.DiffResult;
+import com.thermostat.visual.ImageDiff;
+import com.thermostat.visual.PixelImage;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DialVisualTest
+ *
+ * Screenshots what the ThermostatRing dial actually draws for each system
+ * mode and every target temperature from 50° to 90°, and compares each frame
+ * with its baseline using {@link ImageDiff} (perceptual tolerance, tiles
+ * compared in parallel, early stop on a clear mismatch).
+ *
+ * WHAT WE'RE TESTING:
+ *  - Heat, cool and auto: the arc length, colour, icon and number at all 41 temperatures
+ *  - Off: no arc and "--" instead of a number (the slider is hidden, so this is one frame)
+ *
+ * BASELINES:
+ *  One {@link BaselinePack} per mode in visual-baselines/dial-<mode>.tvb
+ *  (override with -Dvisual.baseline.dir). A frame without a baseline fails the
+ *  test; record missing frames with -Dvisual.record=true (the frames that have
+ *  a baseline are still compared), and after an intended UI change re-record
+ *  them all with -Dvisual.update=true. A failed frame is written to
+ *  target/visual-diffs as expected / actual / diff PNGs. Until baselines are
+ *  committed the class runs only on request (-Dtest=DialVisualTest or
+ *  testng-visual.xml), not in the default testng.xml suite.
+ *
+ * SCHEDULING:
+ *  Works on its own thermostat, so it runs alongside the other browser
+ *  classes; only its own four sweeps are kept apart.
+ *
+ * DATABASE SAFETY:
+ *  Temperatures are set with the slider held down, so the sweep never writes
+ *  targetTemp. It does write systemMode (the mode buttons) and currentTemp
+ *  (pinned so the "Indoor" reading matches the baselines); both are restored
+ *  after every test, even if it fails.
+ */
+@TestThermostat(105)
+public class DialVisualTest extends BaseTest {
+
+    private static final int MIN_TEMP = 50;
+    private static final int MAX_TEMP = 90;
+
+    // The "Indoor" reading is part of the dial — pin it so frames are reproducible
+    private static final int PINNED_CURRENT_TEMP = 72;
+
+    // The arc springs for ~0.5 s and the glow fades for 1 s after a mode change
+    private static final long SETTLE_POLL_MS = 100;
+    private static final long SETTLE_TIMEOUT_MS = 3_000;
+
+    private static final Path BASELINE_DIR = Paths.get(System.getProperty("visual.baseline.dir", "visual-baselines"));
+    private static final Path DIFF_DIR = Paths.get("target", "visual-diffs");
+    private static final boolean UPDATE = Boolean.getBoolean("visual.update");
+    private static final boolean RECORD = UPDATE || Boolean.getBoolean("visual.record");
+
+    private final ThermostatApiClient api = new ThermostatApiClient(Config.APP_BASE_URL);
+    private final ImageDiff diff = new ImageDiff();
+
+    // Captured before each test, restored after each test
+    private int originalCurrentTemp;
+    private String originalSystemMode;
+
+    // ── Snapshot & Restore ───────────────────────────────────────────────────
+
+    @BeforeMethod(alwaysRun = true)
+    public void snapshotState() throws IOException, InterruptedException {
+        String json = api.get(thermostatId).body();
+        originalCurrentTemp = JsonFields.getInt(json, "currentTemp");
+        originalSystemMode = JsonFields.getString(json, "systemMode");
+        log.info("Snapshot — currentTemp: {}°, systemMode: '{}'", originalCurrentTemp, originalSystemMode);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void restoreState() throws IOException, InterruptedException {
+        api.patch(thermostatId, "{\"currentTemp\":" + originalCurrentTemp
+                + ",\"systemMode\":\"" + originalSystemMode + "\"}");
+        log.info("Restored — currentTemp: {}°, systemMode: '{}'", originalCurrentTemp, originalSystemMode);
+    }
+
+    // ── Tests ────────────────────────────────────────────────────────────────
+
+    @Test(description = "Heat dial matches its baseline at every target temperature")
+    public void testHeatDial() throws Exception {
+        sweep("heat");
+    }
+
+    @Test(description = "Cool dial matches its baseline at every target temperature")
+    public void testCoolDial() throws Exception {
+        sweep("cool");
+    }
+
+    @Test(description = "Auto dial matches its baseline at every target temperature")
+    public void testAutoDial() throws Exception {
+        sweep("auto");
+    }
+
+    @Test(description = "Off dial matches its baseline")
+    public void testOffDial() throws Exception {
+        sweep("off");
+    }
+
+    // ── Sweep ────────────────────────────────────────────────────────────────
+
+    private void sweep(String mode) throws Exception {
+        api.patch(thermostatId, "{\"currentTemp\":" + PINNED_CURRENT_TEMP + "}");
+        driver.navigate().refresh();
+        DashboardPage page = new DashboardPage(driver).waitUntilLoaded();
+        page.clickSystemMode(mode);
+
+        Path packFile = BASELINE_DIR.resolve("dial-" + mode + ".tvb");
+        BaselinePack pack = UPDATE ? new BaselinePack() : BaselinePack.read(packFile);
+        List<String> recorded = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+
+        long t0 = System.nanoTime();
+        List<String> frames = new ArrayList<>();
+        if (mode.equals("off")) {
+            frames.add("off");
+        } else {
+            for (int temp = MIN_TEMP; temp <= MAX_TEMP; temp++) frames.add(String.valueOf(temp));
+        }
+        for (String frame : frames) {
+            if (!mode.equals("off")) page.previewTargetTemp(Integer.parseInt(frame));
+            PixelImage actual = captureSettledDial(page);
+            PixelImage expected = pack.get(frame);
+            if (expected == null) {
+                if (RECORD) {
+                    pack.put(frame, actual);
+                    recorded.add(frame);
+                } else {
+                    missing.add(frame);
+                }
+                continue;
+            }
+            // Diff in the background while the browser draws the next frame
+            checks.add(CompletableFuture.runAsync(() -> check(mode, frame, expected, actual, failures)));
+        }
+        long captureMillis = (System.nanoTime() - t0) / 1_000_000;
+        CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0])).join();
+        log.info("Dial '{}': {} frames captured in {} ms, {} compared, {} recorded, {} without baseline, "
+                        + "all diffs done after {} ms",
+                mode, frames.size(), captureMillis, checks.size(), recorded.size(), missing.size(),
+                (System.nanoTime() - t0) / 1_000_000);
+
+        if (!recorded.isEmpty()) {
+            pack.write(packFile);
+            log.info("Recorded {} baseline frame(s) in {}", recorded.size(), packFile);
+        }
+        Assert.assertTrue(failures.isEmpty(), "Dial '" + mode + "' differs from its baseline:\n"
+                + String.join("\n", failures));
+        Assert.assertTrue(missing.isEmpty(), "Dial '" + mode + "' has no baseline in " + packFile + " for "
+                + missing.size() + " frame(s): " + String.join(", ", missing)
+                + " — record them with -Dvisual.record=true");
+    }
+
+    private void check(String mode, String frame, PixelImage expected, PixelImage actual, List<String> failures) {
+        DiffResult result = diff.compare(expected, actual);
+        if (result.matches()) return;
+        failures.add(frame + "°: " + result);
+        if (result.isSizeMismatch()) return;
+        try {
+            String prefix = "dial-" + mode + "-" + frame;
+            expected.writePng(DIFF_DIR.resolve(prefix + "-expected.png"));
+            actual.writePng(DIFF_DIR.resolve(prefix + "-actual.png"));
+            diff.diffImage(expected, actual).writePng(DIFF_DIR.resolve(prefix + "-diff.png"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Screenshots the dial until two captures in a row are identical, i.e. the
+     * arc spring and colour transitions have finished.
+     */
+    private PixelImage captureSettledDial(DashboardPage page) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MS;
+        PixelImage previous = PixelImage.fromPng(page.captureDial());
+        while (true) {
+            Thread.sleep(SETTLE_POLL_MS);
+            PixelImage current = PixelImage.fromPng(page.captureDial());
+            if (Arrays.equals(previous.getPixels(), current.getPixels())) return current;
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Dial still changing after {} ms — comparing the last capture", SETTLE_TIMEOUT_MS);
+                return current;
+            }
+            previous = current;
+        }
+    }
+}
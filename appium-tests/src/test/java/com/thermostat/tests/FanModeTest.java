@@ -1,6 +1,7 @@
 package com.thermostat.tests;
 
 import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
 import com.thermostat.pages.DashboardPage;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -20,6 +21,7 @@ import org.testng.annotations.Test;
  * API response via a page reload, or by checking the button's active style.
  * For simplicity here we make a direct API call after clicking.
  */
+@TestThermostat(103)
 public class FanModeTest extends BaseTest {
 
     @Test(description = "Clicking 'Auto' fan mode button is clickable")
@@ -0,0 +1,158 @@
+package com.thermostat.tests;
+
+import com.thermostat.visual.BaselinePack;
+import com.thermostat.visual.DiffResult;
+import com.thermostat.visual.ImageDiff;
+import com.thermostat.visual.PixelImage;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ImageDiffTest
+ *
+ * Unit tests for the screenshot diff engine and the baseline pack format.
+ * Images are built from int arrays, so no browser is needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Identical and barely different colours match; clearly different ones don't
+ *  - An edge moved by one pixel is tolerated, a moved block is not
+ *  - The mismatch budget decides the result, and a clear mismatch stops early
+ *  - Tiles that don't divide the image evenly still cover every pixel
+ *  - Baseline packs round-trip exactly, in any read order and after replacing a frame
+ */
+public class ImageDiffTest {
+
+    private static final int BACKGROUND = 0xFF101418;
+    private static final int ARC = 0xFFE8672A;
+
+    private static PixelImage filled(int width, int height, int color) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, color);
+        return new PixelImage(width, height, pixels);
+    }
+
+    private static PixelImage withRect(PixelImage base, int x0, int y0, int x1, int y1, int color) {
+        int[] pixels = base.getPixels().clone();
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) pixels[y * base.getWidth() + x] = color;
+        }
+        return new PixelImage(base.getWidth(), base.getHeight(), pixels);
+    }
+
+    @Test(description = "Identical images match with no mismatched pixels")
+    public void testIdentical() {
+        PixelImage image = withRect(filled(100, 80, BACKGROUND), 10, 10, 40, 30, ARC);
+        DiffResult result = new ImageDiff().compare(image, new PixelImage(100, 80, image.getPixels().clone()));
+
+        Assert.assertTrue(result.matches());
+        Assert.assertEquals(result.getMismatchedPixels(), 0);
+    }
+
+    @Test(description = "A colour shift below the threshold matches, a clear change doesn't")
+    public void testPerceptualThreshold() {
+        PixelImage expected = filled(50, 50, BACKGROUND);
+        PixelImage nearlySame = filled(50, 50, 0xFF12161A);
+        PixelImage different = filled(50, 50, 0xFF3060C0);
+
+        Assert.assertTrue(new ImageDiff().compare(expected, nearlySame).matches());
+        Assert.assertFalse(new ImageDiff().compare(expected, different).matches());
+        Assert.assertFalse(new ImageDiff(0, 0).compare(expected, nearlySame).matches(),
+                "threshold 0 means exact");
+    }
+
+    @Test(description = "An edge drawn one pixel over is tolerated, a moved block is not")
+    public void testShiftTolerance() {
+        PixelImage background = filled(100, 100, BACKGROUND);
+        PixelImage expected = withRect(background, 20, 20, 60, 60, ARC);
+        PixelImage shiftedByOne = withRect(background, 21, 20, 61, 60, ARC);
+        PixelImage moved = withRect(background, 30, 20, 70, 60, ARC);
+
+        ImageDiff strict = new ImageDiff(ImageDiff.DEFAULT_THRESHOLD, 0);
+        Assert.assertTrue(strict.compare(expected, shiftedByOne).matches());
+        Assert.assertFalse(strict.compare(expected, moved).matches());
+    }
+
+    @Test(description = "Up to the mismatch budget still matches; a clear mismatch stops early")
+    public void testBudgetAndEarlyStop() {
+        PixelImage expected = filled(100, 100, BACKGROUND);
+        // Isolated pixels, so the one-pixel shift tolerance doesn't apply
+        int[] speckled = expected.getPixels().clone();
+        for (int i = 0; i < 10; i++) speckled[i * 1000 + 505] = 0xFFFFFFFF;
+        PixelImage actual = new PixelImage(100, 100, speckled);
+
+        Assert.assertTrue(new ImageDiff(0.1, 0.001).compare(expected, actual).matches(), "10 of 10000 ≤ 0.1%");
+        Assert.assertFalse(new ImageDiff(0.1, 0.0005).compare(expected, actual).matches(), "10 of 10000 > 0.05%");
+
+        DiffResult clear = new ImageDiff(0.1, 0.001, 8, ForkJoinPool.commonPool())
+                .compare(expected, filled(100, 100, 0xFFFFFFFF));
+        Assert.assertFalse(clear.matches());
+        Assert.assertTrue(clear.isStoppedEarly());
+        Assert.assertTrue(clear.getMismatchedPixels() < 10_000, "should not have counted every pixel");
+    }
+
+    @Test(description = "Tiles smaller than and not dividing the image still cover every pixel")
+    public void testUnevenTiles() {
+        PixelImage expected = filled(37, 23, BACKGROUND);
+        int[] pixels = expected.getPixels().clone();
+        pixels[pixels.length - 1] = 0xFFFFFFFF; // bottom-right corner, in the last partial tile
+        PixelImage actual = new PixelImage(37, 23, pixels);
+
+        ImageDiff diff = new ImageDiff(0.1, 0, 5, ForkJoinPool.commonPool());
+        Assert.assertEquals(diff.compare(expected, actual).getMismatchedPixels(), 1);
+        Assert.assertEquals(diff.diffImage(expected, actual).getPixel(36, 22), 0xFFFF0000);
+    }
+
+    @Test(description = "Images of different sizes never match")
+    public void testSizeMismatch() {
+        DiffResult result = new ImageDiff().compare(filled(10, 10, BACKGROUND), filled(10, 11, BACKGROUND));
+
+        Assert.assertFalse(result.matches());
+        Assert.assertTrue(result.isSizeMismatch());
+    }
+
+    @Test(description = "A baseline pack gives back exactly the frames put in, through a file")
+    public void testBaselinePackRoundTrip() throws Exception {
+        PixelImage background = filled(64, 48, BACKGROUND);
+        PixelImage first = withRect(background, 5, 5, 20, 20, ARC);
+        PixelImage second = withRect(background, 5, 5, 30, 20, ARC);
+        PixelImage third = withRect(background, 5, 5, 40, 20, ARC);
+
+        BaselinePack pack = new BaselinePack();
+        pack.put("50", first);
+        pack.put("51", second);
+        pack.put("52", third);
+        Assert.assertTrue(pack.getStoredBytes() < pack.getRawBytes() / 20, "frames should compress well");
+
+        Path file = Files.createTempFile("dial", ".tvb");
+        try {
+            pack.write(file);
+            BaselinePack loaded = BaselinePack.read(file);
+            Assert.assertEquals(loaded.size(), 3);
+            Assert.assertEquals(loaded.get("52").getPixels(), third.getPixels());
+            Assert.assertEquals(loaded.get("50").getPixels(), first.getPixels(), "reading backwards");
+            Assert.assertEquals(loaded.get("51").getPixels(), second.getPixels());
+            Assert.assertNull(loaded.get("53"));
+
+            // The next frame is stored against the replaced one, so the chain is re-encoded
+            loaded.put("51", third);
+            Assert.assertEquals(loaded.get("51").getPixels(), third.getPixels());
+            Assert.assertEquals(loaded.get("52").getPixels(), third.getPixels());
+            Assert.assertEquals(loaded.get("50").getPixels(), first.getPixels());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(description = "A missing pack file reads as an empty pack")
+    public void testMissingPack() throws Exception {
+        Path file = Files.createTempFile("dial", ".tvb");
+        Files.delete(file);
+
+        Assert.assertEquals(BaselinePack.read(file).size(), 0);
+    }
+}
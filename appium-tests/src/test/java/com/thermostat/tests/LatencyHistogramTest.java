@@ -0,0 +1,82 @@
+package com.thermostat.tests;
+
+import com.thermostat.load.LatencyHistogram;
+import com.thermostat.load.LoadReport;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * LatencyHistogramTest
+ *
+ * Unit tests for the load-generation histogram. No browser or server needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Percentiles stay within the histogram's ~1.6% precision
+ *  - Merging per-worker histograms gives exactly the same answer as one histogram
+ *  - Reports survive the coordinator ⇄ worker wire format unchanged
+ */
+public class LatencyHistogramTest {
+
+    @Test(description = "Percentiles are reported within 1/64 of the true value")
+    public void testPercentilePrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.recordMicros(v);
+
+        Assert.assertEquals(h.getCount(), 100_000);
+        Assert.assertEquals(h.getMinMicros(), 1);
+        Assert.assertEquals(h.getMaxMicros(), 100_000);
+        Assert.assertEquals(h.getPercentileMicros(50), 50_000, 50_000 / 64.0);
+        Assert.assertEquals(h.getPercentileMicros(99), 99_000, 99_000 / 64.0);
+    }
+
+    @Test(description = "Merging worker histograms loses no precision")
+    public void testMergeMatchesSingleHistogram() {
+        Random random = new Random(42);
+        LatencyHistogram single = new LatencyHistogram();
+        LatencyHistogram[] workers = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        for (int i = 0; i < 30_000; i++) {
+            long v = (long) Math.abs(random.nextGaussian() * 20_000);
+            single.recordMicros(v);
+            workers[i % workers.length].recordMicros(v);
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram w : workers) merged.merge(w);
+
+        Assert.assertEquals(merged.getCount(), single.getCount());
+        Assert.assertEquals(merged.getMinMicros(), single.getMinMicros());
+        Assert.assertEquals(merged.getMaxMicros(), single.getMaxMicros());
+        Assert.assertEquals(merged.getMeanMicros(), single.getMeanMicros(), 1e-9);
+        for (double p : new double[] {1, 10, 50, 90, 99, 99.9, 100}) {
+            Assert.assertEquals(merged.getPercentileMicros(p), single.getPercentileMicros(p), "p" + p);
+        }
+    }
+
+    @Test(description = "A report read back from the wire format merges like the original")
+    public void testReportWireRoundTrip() throws IOException {
+        LoadReport report = new LoadReport();
+        report.operation("poll").getLatency().recordMicros(1_234);
+        report.operation("poll").recordError();
+        report.counter("sse.update").add(7);
+        report.setElapsedMillis(5_000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        report.writeTo(new DataOutputStream(bytes));
+        LoadReport copy = LoadReport.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        LoadReport merged = LoadReport.mergeAll(List.of(report, copy));
+        Assert.assertEquals(merged.getWorkerCount(), 2);
+        Assert.assertEquals(merged.operation("poll").getSuccessCount(), 2);
+        Assert.assertEquals(merged.operation("poll").getErrorCount(), 2);
+        Assert.assertEquals(merged.counter("sse.update").sum(), 14);
+        Assert.assertEquals(merged.getElapsedMillis(), 5_000);
+    }
+}
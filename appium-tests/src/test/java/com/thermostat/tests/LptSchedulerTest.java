@@ -0,0 +1,146 @@
+package com.thermostat.tests;
+
+import com.thermostat.base.TestThermostat;
+import com.thermostat.scheduling.LptScheduler;
+import com.thermostat.scheduling.ScheduledSuiteRunner;
+import com.thermostat.scheduling.ScheduledTest;
+import com.thermostat.scheduling.TestDurationHistory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LptSchedulerTest
+ *
+ * Unit tests for history-driven test scheduling. No browser or server needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Longest tests are started first
+ *  - The predicted makespan beats running the suite in its written order
+ *  - Tests in the same exclusive group never overlap
+ *  - Each thermostat is its own group, so classes on different thermostats overlap
+ *  - Read-only classes are in no group; forced-exclusive classes share one
+ *  - Unit test classes aren't browser tests
+ */
+public class LptSchedulerTest {
+
+    @Test(description = "Tests are ordered longest first")
+    public void testLongestFirstOrdering() {
+        List<ScheduledTest> sorted = LptScheduler.longestFirst(List.of(
+                test("a", 1_000, null), test("b", 9_000, null), test("c", 4_000, null)));
+
+        Assert.assertEquals(sorted.get(0).getMethodName(), "b");
+        Assert.assertEquals(sorted.get(1).getMethodName(), "c");
+        Assert.assertEquals(sorted.get(2).getMethodName(), "a");
+    }
+
+    @Test(description = "LPT balances workers so they finish close together")
+    public void testPredictedMakespanIsBalanced() {
+        // Classic case: 2 workers, jobs 3,3,2,2,2 — optimal is 6 (3+3 / 2+2+2), LPT gives 7
+        List<ScheduledTest> tests = List.of(
+                test("a", 2, null), test("b", 2, null), test("c", 2, null),
+                test("d", 3, null), test("e", 3, null));
+
+        LptScheduler.Prediction prediction = LptScheduler.predict(tests, 2);
+
+        Assert.assertEquals(prediction.getLowerBoundMillis(), 6);
+        Assert.assertEquals(prediction.getMakespanMillis(), 7);
+        Assert.assertTrue(prediction.getMakespanMillis() * 3 <= prediction.getLowerBoundMillis() * 4,
+                "LPT should stay within 4/3 of optimal");
+    }
+
+    @Test(description = "Exclusive tests are serialised even with free workers")
+    public void testExclusiveGroupNeverOverlaps() {
+        List<ScheduledTest> tests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) tests.add(test("api" + i, 1_500, "api"));
+        for (int i = 0; i < 4; i++) tests.add(test("ui" + i, 1_000, null));
+
+        LptScheduler.Prediction prediction = LptScheduler.predict(tests, 4);
+
+        // 4 × 1.5 s of api work must run back to back
+        Assert.assertTrue(prediction.getMakespanMillis() >= 6_000,
+                "Makespan should cover the serialised api tests, but was " + prediction.getMakespanMillis());
+        Assert.assertEquals(prediction.getMakespanMillis(), prediction.getLowerBoundMillis(),
+                "UI tests should fill the gaps around the serialised api tests");
+    }
+
+    @Test(description = "Each thermostat is its own group, so classes on different thermostats overlap")
+    public void testGroupPerThermostat() {
+        List<ScheduledTest> tests = ScheduledSuiteRunner.discover(
+                List.of(WritesA.class, WritesB.class, ReadsC.class),
+                new TestDurationHistory(Paths.get("no-such-durations.properties")), Set.of());
+
+        Assert.assertEquals(tests.size(), 6);
+        for (ScheduledTest test : tests) {
+            String expected = test.getClassName().equals(WritesA.class.getName()) ? "thermostat-201"
+                    : test.getClassName().equals(WritesB.class.getName()) ? "thermostat-202" : null;
+            Assert.assertEquals(test.getExclusiveGroup(), expected, test.key());
+        }
+        Assert.assertEquals(ScheduledSuiteRunner.exclusiveGroup(WritesA.class, Set.of(WritesA.class.getName())),
+                ScheduledSuiteRunner.EXCLUSIVE_GROUP, "-Dscheduler.exclusive overrides the thermostat");
+
+        // Two 2 × 3 s writers and a 2 × 1 s reader on 3 workers: the writers run side by side
+        List<ScheduledTest> timed = List.of(
+                test("a1", 3_000, "thermostat-201"), test("a2", 3_000, "thermostat-201"),
+                test("b1", 3_000, "thermostat-202"), test("b2", 3_000, "thermostat-202"),
+                test("c1", 1_000, null), test("c2", 1_000, null));
+        Assert.assertEquals(LptScheduler.predict(timed, 3).getMakespanMillis(), 6_000,
+                "each writer's own methods are serialised, but the writers overlap");
+    }
+
+    @Test(description = "All exclusive classes share one group, and only browser classes are scheduled")
+    public void testExclusiveClassesShareOneGroup() {
+        List<ScheduledTest> tests = ScheduledSuiteRunner.discover(
+                List.of(ImageDiffTest.class, LatencyHistogramTest.class, LptSchedulerTest.class),
+                new TestDurationHistory(Paths.get("no-such-durations.properties")),
+                Set.of(ImageDiffTest.class.getName(), LatencyHistogramTest.class.getName()));
+
+        for (ScheduledTest test : tests) {
+            String expected = test.getClassName().equals(LptSchedulerTest.class.getName())
+                    ? null : ScheduledSuiteRunner.EXCLUSIVE_GROUP;
+            Assert.assertEquals(test.getExclusiveGroup(), expected, test.key());
+        }
+        Assert.assertFalse(ScheduledSuiteRunner.usesBrowser(ImageDiffTest.class), "unit tests borrow no session");
+    }
+
+    @TestThermostat(201)
+    public static class WritesA {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    @TestThermostat(202)
+    public static class WritesB {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    @TestThermostat(value = 203, readOnly = true)
+    public static class ReadsC {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    private static ScheduledTest test(String method, long millis, String group) {
+        return new ScheduledTest("com.example.FakeTest", method, millis, group);
+    }
+}
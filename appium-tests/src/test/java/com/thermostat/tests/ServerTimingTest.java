@@ -0,0 +1,113 @@
+package com.thermostat.tests;
+
+import com.thermostat.load.ServerTimingBreakdown;
+import com.thermostat.utils.ServerTiming;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ServerTimingTest
+ *
+ * Unit tests for the Server-Timing header parser and the per-endpoint phase
+ * breakdown built from it. No server needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Several metrics in one header, in header order
+ *  - dur before or after desc, quoted descriptions holding commas and semicolons
+ *  - Metrics without dur and malformed entries are skipped without failing the rest
+ *  - Breakdown shares of total, cache hit ratio, merge and wire round trip
+ */
+public class ServerTimingTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test(description = "Several metrics are parsed in header order")
+    public void testMultipleMetrics() {
+        Map<String, Double> phases = ServerTiming.parse(
+                "validate;dur=0.21, db-update;dur=41.80, db-reread;dur=23.05, total;dur=66.40");
+
+        Assert.assertEquals(List.copyOf(phases.keySet()), List.of("validate", "db-update", "db-reread", "total"));
+        Assert.assertEquals(phases.get("db-update"), 41.80, EPSILON);
+        Assert.assertEquals(phases.get("total"), 66.40, EPSILON);
+    }
+
+    @Test(description = "dur is found before or after desc, and quoted descriptions may hold separators")
+    public void testDescriptions() {
+        Map<String, Double> phases = ServerTiming.parse(
+                "db;desc=\"read, then write; twice\";dur=12.5, cache-hit;dur=0.3;desc=lru, "
+                        + "edge;desc=\"say \\\"hi\\\", then go\";DUR = 1");
+
+        Assert.assertEquals(phases.size(), 3, phases.toString());
+        Assert.assertEquals(phases.get("db"), 12.5, EPSILON);
+        Assert.assertEquals(phases.get("cache-hit"), 0.3, EPSILON);
+        Assert.assertEquals(phases.get("edge"), 1.0, EPSILON);
+    }
+
+    @Test(description = "Metrics without a usable dur and malformed entries are skipped")
+    public void testMissingAndMalformed() {
+        Map<String, Double> phases = ServerTiming.parse(
+                "miss, ;dur=5, bad;dur=fast, total;dur=3;dur=99, ,,empty;dur=, db;dur=2, db;dur=1");
+
+        Assert.assertEquals(List.copyOf(phases.keySet()), List.of("total", "db"));
+        Assert.assertEquals(phases.get("total"), 3.0, EPSILON, "only the first dur of a metric counts");
+        Assert.assertEquals(phases.get("db"), 3.0, EPSILON, "a phase reported twice is summed");
+        Assert.assertTrue(ServerTiming.parse("").isEmpty());
+    }
+
+    @Test(description = "Each phase's share is its summed time over the summed total")
+    public void testShareOfTotal() {
+        ServerTimingBreakdown breakdown = new ServerTimingBreakdown();
+        breakdown.record("PATCH", Map.of("db-update", 30.0, "validate", 1.0, "total", 40.0));
+        breakdown.record("PATCH", Map.of("db-update", 50.0, "validate", 1.0, "total", 60.0));
+
+        Assert.assertEquals(breakdown.getShareOfTotal("PATCH", "db-update"), 0.8, 0.001);
+        Assert.assertEquals(breakdown.getShareOfTotal("PATCH", "validate"), 0.02, 0.001);
+        Assert.assertEquals(breakdown.getShareOfTotal("PATCH", "missing"), -1.0, EPSILON);
+        Assert.assertEquals(breakdown.getShareOfTotal("GET", "db-get"), -1.0, EPSILON);
+        Assert.assertTrue(breakdown.format().contains("80%"), breakdown.format());
+    }
+
+    @Test(description = "The cache hit ratio counts cache-hit against cache-miss lookups")
+    public void testCacheHitRatio() {
+        ServerTimingBreakdown breakdown = new ServerTimingBreakdown();
+        for (int i = 0; i < 3; i++) {
+            breakdown.record("GET", ServerTiming.parse("cache-hit;dur=0.01, total;dur=0.2"));
+        }
+        breakdown.record("GET", ServerTiming.parse("cache-miss;dur=0.01, db-get;dur=20.5, total;dur=21"));
+        // A miss that waited on another request's read records no db-get of its own
+        breakdown.record("GET", ServerTiming.parse("cache-miss;dur=0.02, total;dur=18"));
+        breakdown.record("PATCH", ServerTiming.parse("validate;dur=0.2, db-update;dur=40, total;dur=41"));
+
+        Assert.assertEquals(breakdown.getCacheHitRatio("GET"), 0.6, EPSILON);
+        Assert.assertEquals(breakdown.getCacheHitRatio("PATCH"), -1.0, EPSILON, "not served through the cache");
+        Assert.assertEquals(breakdown.getCacheHitRatio("LIST"), -1.0, EPSILON);
+        Assert.assertTrue(breakdown.format().contains("cache hit ratio 60.0%"), breakdown.format());
+    }
+
+    @Test(description = "Merged and round-tripped breakdowns keep every sample")
+    public void testMergeAndWireRoundTrip() throws Exception {
+        ServerTimingBreakdown a = new ServerTimingBreakdown();
+        a.record("GET", Map.of("db-get", 10.0, "total", 12.0));
+        ServerTimingBreakdown b = new ServerTimingBreakdown();
+        b.record("GET", Map.of("db-get", 20.0, "total", 22.0));
+        b.record("PATCH", Map.of("total", 5.0));
+        a.merge(b);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        a.writeTo(new DataOutputStream(bytes));
+        ServerTimingBreakdown read = ServerTimingBreakdown.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        Assert.assertEquals(read.histogram("GET", "db-get").getCount(), 2);
+        Assert.assertEquals(read.histogram("GET", "db-get").getMeanMicros(), 15_000, 1);
+        Assert.assertEquals(read.histogram("PATCH", "total").getCount(), 1);
+        Assert.assertEquals(read.format(), a.format());
+    }
+}
@@ -0,0 +1,151 @@
+package com.thermostat.tests;
+
+import com.thermostat.grid.SessionDispatcher;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * SessionDispatcherTest
+ *
+ * Unit tests for routing sessions across Appium nodes. Sessions come from a
+ * fake factory and node health from a fake probe, so no Appium server is needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - New sessions go to the least-loaded node
+ *  - Callers queue when every slot is taken and go on when one is released
+ *  - An unreachable node is marked down and the session is retried on another
+ *  - Any other session error is thrown at once and leaves the node up
+ *  - A node that was down takes sessions again once its health check passes
+ */
+public class SessionDispatcherTest {
+
+    private static final String NODE_A = "http://node-a:4723";
+    private static final String NODE_B = "http://node-b:4723";
+    private static final long HEALTH_CHECK_MILLIS = 50;
+
+    /** A session that remembers which node it was created on. */
+    private static final class FakeDriver extends RemoteWebDriver {
+        final String node;
+
+        FakeDriver(String node) {
+            this.node = node;
+        }
+
+        @Override
+        public void quit() {
+        }
+    }
+
+    /** Fake nodes: the ones in {@code down} refuse connections and fail their health check. */
+    private static final class FakeGrid {
+        final Set<String> down = ConcurrentHashMap.newKeySet();
+        final Set<String> rejectCapabilities = ConcurrentHashMap.newKeySet();
+        final List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+
+        SessionDispatcher dispatcher(int sessionsPerNode, String... nodes) {
+            return new SessionDispatcher(List.of(nodes), sessionsPerNode,
+                    (hubUrl, capabilities) -> create(hubUrl),
+                    node -> !down.contains(node.getServerUrl()), HEALTH_CHECK_MILLIS);
+        }
+
+        RemoteWebDriver create(URL hubUrl) {
+            String node = hubUrl.toString().replace("/wd/hub", "");
+            attempts.add(node);
+            if (down.contains(node)) {
+                throw new WebDriverException("Could not start a new session", new ConnectException("Connection refused"));
+            }
+            if (rejectCapabilities.contains(node)) {
+                throw new WebDriverException("Invalid argument: unrecognized capability 'browserName'");
+            }
+            return new FakeDriver(node);
+        }
+    }
+
+    private static String node(RemoteWebDriver driver) {
+        return ((FakeDriver) driver).node;
+    }
+
+    @Test(description = "Sessions go to the least-loaded node")
+    public void testLeastLoadedRouting() {
+        SessionDispatcher dispatcher = new FakeGrid().dispatcher(2, NODE_A, NODE_B);
+
+        RemoteWebDriver first = dispatcher.acquire(null);
+        RemoteWebDriver second = dispatcher.acquire(null);
+        Assert.assertNotEquals(node(first), node(second), "the second session should go to the idle node");
+
+        dispatcher.release(first);
+        Assert.assertEquals(node(dispatcher.acquire(null)), node(first), "the freed node is now the least loaded");
+    }
+
+    @Test(description = "Callers queue at capacity and continue when a slot is released")
+    public void testQueueingAtCapacity() throws Exception {
+        SessionDispatcher dispatcher = new FakeGrid().dispatcher(1, NODE_A);
+        RemoteWebDriver held = dispatcher.acquire(null);
+
+        CompletableFuture<RemoteWebDriver> queued = CompletableFuture.supplyAsync(() -> dispatcher.acquire(null));
+        Assert.assertThrows(TimeoutException.class, () -> queued.get(200, TimeUnit.MILLISECONDS));
+
+        dispatcher.release(held);
+        Assert.assertEquals(node(queued.get(2, TimeUnit.SECONDS)), NODE_A);
+    }
+
+    @Test(description = "An unreachable node is marked down and the session retried on another")
+    public void testRetryOnAnotherNode() {
+        FakeGrid grid = new FakeGrid();
+        SessionDispatcher dispatcher = grid.dispatcher(2, NODE_A, NODE_B);
+        grid.down.add(NODE_A);
+
+        // Both nodes are idle, so the first attempt goes to A (fewest sessions started, listed first)
+        RemoteWebDriver driver = dispatcher.acquire(null);
+        Assert.assertEquals(node(driver), NODE_B);
+        Assert.assertEquals(grid.attempts, List.of(NODE_A, NODE_B));
+
+        // A is down now, so even though it is idle, B takes the next session too
+        Assert.assertEquals(node(dispatcher.acquire(null)), NODE_B);
+    }
+
+    @Test(description = "A session error that isn't the node's fault is thrown at once and leaves the node up")
+    public void testSessionErrorIsNotRetried() {
+        FakeGrid grid = new FakeGrid();
+        SessionDispatcher dispatcher = grid.dispatcher(1, NODE_A, NODE_B);
+        grid.rejectCapabilities.add(NODE_A);
+
+        Assert.assertThrows(WebDriverException.class, () -> dispatcher.acquire(null));
+        Assert.assertEquals(grid.attempts, List.of(NODE_A), "no retry on another node");
+
+        grid.rejectCapabilities.clear();
+        RemoteWebDriver first = dispatcher.acquire(null);
+        Assert.assertEquals(node(dispatcher.acquire(null)), node(first).equals(NODE_A) ? NODE_B : NODE_A,
+                "both nodes should still be taking sessions");
+    }
+
+    @Test(description = "A node that was down takes sessions again once its health check passes")
+    public void testRecoveryAfterBackOff() throws Exception {
+        FakeGrid grid = new FakeGrid();
+        SessionDispatcher dispatcher = grid.dispatcher(1, NODE_A, NODE_B);
+        grid.down.add(NODE_A);
+
+        RemoteWebDriver onB = dispatcher.acquire(null);
+        Assert.assertEquals(node(onB), NODE_B);
+
+        // B is full and A is down — the next caller waits until A comes back
+        CompletableFuture<RemoteWebDriver> waiting = CompletableFuture.supplyAsync(() -> dispatcher.acquire(null));
+        Assert.assertThrows(TimeoutException.class, () -> waiting.get(HEALTH_CHECK_MILLIS * 2, TimeUnit.MILLISECONDS));
+
+        grid.down.remove(NODE_A);
+        Assert.assertEquals(node(waiting.get(2, TimeUnit.SECONDS)), NODE_A);
+    }
+}
@@ -1,6 +1,7 @@
 package com.thermostat.tests;
 
 import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
 import com.thermostat.pages.DashboardPage;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -16,6 +17,7 @@ import org.testng.annotations.Test;
  *  - Switching away from 'Off' shows the +/- buttons and slider again
  *  - Rapidly switching modes settles on the last one clicked
  */
+@TestThermostat(102)
 public class SystemModeTest extends BaseTest {
 
     @Test(description = "Clicking 'Heat' mode button activates heat mode")
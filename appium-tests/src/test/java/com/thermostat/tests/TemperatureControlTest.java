@@ -1,6 +1,7 @@
 package com.thermostat.tests;
 
 import com.thermostat.base.BaseTest;
+import com.thermostat.base.TestThermostat;
 import com.thermostat.pages.DashboardPage;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -20,6 +21,7 @@ import org.testng.annotations.Test;
  * NOTE: These tests only verify the UI — they do not wait for the API to
  * confirm the change. A separate ApiIntegrationTest handles that scenario.
  */
+@TestThermostat(101)
 public class TemperatureControlTest extends BaseTest {
 
     @Test(description = "Clicking + increases target temperature by 1 degree")
@@ -0,0 +1,160 @@
+package com.thermostat.tests;
+
+import com.thermostat.codec.ThermostatBinaryCodec;
+import com.thermostat.codec.ThermostatJson;
+import com.thermostat.codec.ThermostatState;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * ThermostatBinaryCodecTest
+ *
+ * Unit tests for the compact binary thermostat encoding and its JSON
+ * counterpart. No browser or server needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - Documents survive an encode/decode round trip, including unknown mode strings
+ *  - The bytes match the layout the server writes (server/binary.ts)
+ *  - A one-field PATCH really is tiny, and can be applied onto existing state
+ *  - Malformed input is rejected instead of decoding garbage
+ *  - JSON names holding quotes and backslashes are escaped on write and decoded on read
+ */
+public class ThermostatBinaryCodecTest {
+
+    private static ThermostatState livingRoom() {
+        return new ThermostatState()
+                .setId(1)
+                .setName("Living Room")
+                .setCurrentTemp(71)
+                .setTargetTemp(72)
+                .setSystemMode("cool")
+                .setFanMode("auto")
+                .setCurrentHumidity(45)
+                .setLastUpdatedMillis(1_714_566_896_789L);
+    }
+
+    private static byte[] encode(ThermostatState state, int fields) {
+        byte[] buf = new byte[ThermostatBinaryCodec.maxEncodedSize(state)];
+        int length = ThermostatBinaryCodec.encode(state, fields, buf, 0);
+        return Arrays.copyOf(buf, length);
+    }
+
+    private static ThermostatState decode(byte[] bytes) {
+        ThermostatState state = new ThermostatState();
+        ThermostatBinaryCodec.decode(bytes, 0, bytes.length, state);
+        return state;
+    }
+
+    @Test(description = "A full document round-trips field for field")
+    public void testRoundTrip() {
+        ThermostatState decoded = decode(encode(livingRoom(), ThermostatState.ALL_FIELDS));
+
+        Assert.assertEquals(decoded.getPresentMask(), ThermostatState.ALL_FIELDS);
+        Assert.assertEquals(decoded.getId(), 1);
+        Assert.assertEquals(decoded.getName(), "Living Room");
+        Assert.assertEquals(decoded.getCurrentTemp(), 71);
+        Assert.assertEquals(decoded.getTargetTemp(), 72);
+        Assert.assertEquals(decoded.getSystemMode(), "cool");
+        Assert.assertEquals(decoded.getFanMode(), "auto");
+        Assert.assertEquals(decoded.getCurrentHumidity(), 45);
+        Assert.assertEquals(decoded.getLastUpdatedMillis(), 1_714_566_896_789L);
+    }
+
+    @Test(description = "Negative temperatures and unknown modes survive a round trip")
+    public void testUnusualValues() {
+        ThermostatState state = new ThermostatState()
+                .setCurrentTemp(-40)
+                .setSystemMode("emergency-heat")
+                .setFanMode("circulate");
+
+        ThermostatState decoded = decode(encode(state, ThermostatState.ALL_FIELDS));
+
+        Assert.assertEquals(decoded.getCurrentTemp(), -40);
+        Assert.assertEquals(decoded.getSystemMode(), "emergency-heat");
+        Assert.assertEquals(decoded.getFanMode(), "circulate");
+        Assert.assertFalse(decoded.has(ThermostatState.FIELD_ID));
+    }
+
+    @Test(description = "A targetTemp PATCH encodes to the 4 bytes the server expects")
+    public void testPatchGoldenBytes() {
+        byte[] bytes = encode(new ThermostatState().setTargetTemp(72), ThermostatState.ALL_FIELDS);
+
+        // version 1, mask bit 3, zigzag(72) = 144 = varint 0x90 0x01
+        Assert.assertEquals(bytes, new byte[]{1, 0x08, (byte) 0x90, 0x01});
+    }
+
+    @Test(description = "Modes are sent as one-byte enum codes")
+    public void testModeGoldenBytes() {
+        byte[] bytes = encode(new ThermostatState().setSystemMode("off").setFanMode("on"), ThermostatState.ALL_FIELDS);
+
+        Assert.assertEquals(bytes, new byte[]{1, 0x30, 4, 2});
+    }
+
+    @Test(description = "The field mask selects a subset, e.g. a poll response without the name")
+    public void testFieldMask() {
+        int pollFields = ThermostatState.ALL_FIELDS & ~(1 << ThermostatState.FIELD_NAME);
+        ThermostatState decoded = decode(encode(livingRoom(), pollFields));
+
+        Assert.assertEquals(decoded.getPresentMask(), pollFields);
+        Assert.assertEquals(decoded.getTargetTemp(), 72);
+    }
+
+    @Test(description = "Applying a partial update only touches the fields it carries")
+    public void testApplyPartialUpdate() {
+        ThermostatState local = livingRoom();
+        ThermostatState update = decode(encode(new ThermostatState().setTargetTemp(68).setFanMode("on"),
+                ThermostatState.ALL_FIELDS));
+
+        local.apply(update);
+
+        Assert.assertEquals(local.getTargetTemp(), 68);
+        Assert.assertEquals(local.getFanMode(), "on");
+        Assert.assertEquals(local.getSystemMode(), "cool");
+        Assert.assertEquals(local.getName(), "Living Room");
+    }
+
+    @Test(description = "Decoding into a reused state replaces what was there before")
+    public void testReuse() {
+        ThermostatState state = decode(encode(livingRoom(), ThermostatState.ALL_FIELDS));
+        byte[] patch = encode(new ThermostatState().setTargetTemp(60), ThermostatState.ALL_FIELDS);
+
+        ThermostatBinaryCodec.decode(new ThermostatBinaryCodec.Cursor(patch, 0, patch.length), state);
+
+        Assert.assertEquals(state.getPresentMask(), 1 << ThermostatState.FIELD_TARGET_TEMP);
+        Assert.assertEquals(state.getTargetTemp(), 60);
+    }
+
+    @Test(description = "Truncated input is rejected")
+    public void testTruncated() {
+        byte[] bytes = encode(livingRoom(), ThermostatState.ALL_FIELDS);
+
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ThermostatBinaryCodec.decode(bytes, 0, bytes.length - 1, new ThermostatState()));
+    }
+
+    @Test(description = "An unknown format version is rejected")
+    public void testUnknownVersion() {
+        byte[] bytes = {2, 0};
+
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ThermostatBinaryCodec.decode(bytes, 0, bytes.length, new ThermostatState()));
+    }
+
+    @Test(description = "A name with quotes and backslashes survives a JSON round trip")
+    public void testJsonEscapedName() {
+        String name = "Kid's \"Den\" \\ loft\tnorth";
+        ThermostatState state = livingRoom().setName(name);
+
+        String json = ThermostatJson.write(state, ThermostatState.ALL_FIELDS, new StringBuilder());
+        Assert.assertTrue(json.contains("\"name\":\"Kid's \\\"Den\\\" \\\\ loft\\tnorth\","), json);
+
+        ThermostatState read = ThermostatJson.read(json, new ThermostatState());
+        Assert.assertEquals(read.getPresentMask(), ThermostatState.ALL_FIELDS);
+        Assert.assertEquals(read.getName(), name);
+        Assert.assertEquals(read.getTargetTemp(), 72);
+        Assert.assertEquals(read.getSystemMode(), "cool");
+        Assert.assertEquals(read.getLastUpdatedMillis(), 1_714_566_896_789L);
+    }
+}
@@ -0,0 +1,97 @@
+package com.thermostat.tests;
+
+import com.thermostat.fuzz.FuzzAction;
+import com.thermostat.fuzz.FuzzFailure;
+import com.thermostat.fuzz.FuzzReport;
+import com.thermostat.fuzz.FuzzTarget;
+import com.thermostat.fuzz.InProcessThermostats;
+import com.thermostat.fuzz.ThermostatFuzzer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * ThermostatFuzzerTest
+ *
+ * Unit tests for the model-based fuzzer, run against the in-process stand-in
+ * so no server is needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - The stand-in answers like the server: bad types are a 400, {} and unknown fields are accepted
+ *  - A correct API passes thousands of random sequences on several threads
+ *  - A planted bug is found and shrunk to a sequence of at most two actions
+ *  - A run with maxFailures 0 (the warm-up) runs every sequence and shrinks nothing
+ *  - The same seed always generates the same sequence
+ */
+public class ThermostatFuzzerTest {
+
+    private static final long SEED = 20240501L;
+
+    @Test(description = "The stand-in validates PATCH bodies like the server's schema")
+    public void testStandInValidation() throws Exception {
+        InProcessThermostats thermostats = new InProcessThermostats(1);
+
+        Assert.assertEquals(thermostats.patch(1, "{\"targetTemp\":\"warm\"}").getStatus(), 400);
+        Assert.assertEquals(thermostats.patch(1, "{\"fanMode\":null}").getStatus(), 400);
+        Assert.assertEquals(thermostats.patch(1, "[]").getStatus(), 400);
+        Assert.assertEquals(thermostats.patch(1, "{}").getStatus(), 200);
+        Assert.assertEquals(thermostats.patch(2, "{}").getStatus(), 404);
+
+        FuzzTarget.Response response = thermostats.patch(1, "{\"targetTemperature\":99,\"targetTemp\":101}");
+        Assert.assertEquals(response.getStatus(), 200);
+        Assert.assertTrue(response.getBody().contains("\"targetTemp\":101"), response.getBody());
+        Assert.assertFalse(response.getBody().contains("targetTemperature"), "unknown fields are dropped");
+    }
+
+    @Test(description = "A correct API passes every sequence")
+    public void testCorrectApiPasses() throws Exception {
+        int threads = 4;
+        ThermostatFuzzer fuzzer = new ThermostatFuzzer(new InProcessThermostats(threads), ids(threads), threads);
+
+        FuzzReport report = fuzzer.run(SEED, 2_000, 40, 1);
+
+        Assert.assertTrue(report.passed(), report.format());
+        Assert.assertEquals(report.getSequences(), 2_000);
+        Assert.assertTrue(report.getOperations() > 2_000 * 10, "sequences should average ~20 actions");
+    }
+
+    @Test(description = "A planted bug is found and shrunk to a minimal sequence")
+    public void testPlantedBugIsShrunk() throws Exception {
+        int threads = 4;
+        ThermostatFuzzer fuzzer = new ThermostatFuzzer(new InProcessThermostats(threads, true), ids(threads), threads);
+
+        FuzzReport report = fuzzer.run(SEED, 2_000, 40, 1);
+
+        Assert.assertFalse(report.passed(), "switching off resets the fan — the fuzzer should notice");
+        FuzzFailure failure = report.getFailures().get(0);
+        List<FuzzAction> shrunk = failure.getShrunk();
+        Assert.assertTrue(shrunk.size() <= 2, "expected fanMode=on then systemMode=off, or both at once:\n" + failure);
+        Assert.assertTrue(shrunk.size() <= failure.getOriginal().size());
+        Assert.assertTrue(failure.getMessage().contains("fanMode 'auto', expected 'on'"), failure.getMessage());
+    }
+
+    @Test(description = "With maxFailures 0 every sequence runs and nothing is collected or shrunk")
+    public void testWarmUpCollectsNothing() throws Exception {
+        int threads = 4;
+        ThermostatFuzzer fuzzer = new ThermostatFuzzer(new InProcessThermostats(threads, true), ids(threads), threads);
+
+        FuzzReport report = fuzzer.run(SEED, 500, 40, 0);
+
+        Assert.assertEquals(report.getSequences(), 500, "failures must not stop the run");
+        Assert.assertTrue(report.getFailures().isEmpty());
+        Assert.assertThrows(IllegalArgumentException.class, () -> fuzzer.run(SEED, 1, 40, -1));
+    }
+
+    @Test(description = "A seed always generates the same sequence")
+    public void testSequencesAreReproducible() {
+        Assert.assertEquals(ThermostatFuzzer.sequence(42, 40), ThermostatFuzzer.sequence(42, 40));
+        Assert.assertNotEquals(ThermostatFuzzer.sequence(42, 40), ThermostatFuzzer.sequence(43, 40));
+    }
+
+    private static int[] ids(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = i + 1;
+        return ids;
+    }
+}
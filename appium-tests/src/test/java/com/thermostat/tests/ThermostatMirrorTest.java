@@ -0,0 +1,102 @@
+package com.thermostat.tests;
+
+import com.thermostat.sse.SseEvent;
+import com.thermostat.sse.SseLineSubscriber;
+import com.thermostat.sse.ThermostatMirror;
+import com.thermostat.utils.ThermostatApiClient;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ThermostatMirrorTest
+ *
+ * Unit tests for the delta SSE consumer. Events are fed in directly, so no
+ * browser or server is needed.
+ *
+ * WHAT WE'RE TESTING:
+ *  - SSE lines are assembled into events with id, type and data
+ *  - A snapshot followed by deltas gives the same state as the server
+ *  - A missing event id, or a change of epoch without a snapshot, is detected as a lost event
+ */
+public class ThermostatMirrorTest {
+
+    private static final String EPOCH = "9f3c2a1b.1-";
+
+    private static final String SNAPSHOT = "{\"id\":1,\"name\":\"Living Room\",\"currentTemp\":71,\"targetTemp\":70,"
+            + "\"systemMode\":\"cool\",\"fanMode\":\"auto\",\"currentHumidity\":45,"
+            + "\"lastUpdated\":\"2024-05-01T12:00:00.000Z\"}";
+
+    private static ThermostatMirror mirror() {
+        return new ThermostatMirror(new ThermostatApiClient("http://localhost:0"), 1);
+    }
+
+    @Test(description = "Stream lines are assembled into events")
+    public void testLineParsing() {
+        List<SseEvent> events = new ArrayList<>();
+        SseLineSubscriber subscriber = new SseLineSubscriber(events::add, error -> { });
+
+        for (String line : new String[]{
+                "retry: 2000", "event: connected", "data: {\"message\":\"hi\"}", "",
+                ": comment", "id: 9f3c2a1b.1-42", "event: update", "data: {\"targetTemp\":72}", "",
+                "event: ping", "data: {\"time\":1}", ""}) {
+            subscriber.onNext(line);
+        }
+
+        Assert.assertEquals(events.size(), 3);
+        Assert.assertEquals(subscriber.getRetryMillis(), 2000);
+        Assert.assertNull(events.get(0).getId(), "connected has no id");
+        Assert.assertEquals(events.get(1).getId(), "9f3c2a1b.1-42");
+        Assert.assertEquals(events.get(1).getType(), "update");
+        Assert.assertEquals(events.get(1).getData(), "{\"targetTemp\":72}");
+        Assert.assertEquals(events.get(1).getWireBytes(), ": comment\nid: 9f3c2a1b.1-42\nevent: update\ndata: {\"targetTemp\":72}\n\n".length());
+    }
+
+    @Test(description = "Deltas merged onto a snapshot match the server's document")
+    public void testDeltasApplyOntoSnapshot() {
+        ThermostatMirror mirror = mirror();
+        mirror.accept(new SseEvent(EPOCH + "100", "snapshot", SNAPSHOT, 0));
+        mirror.accept(new SseEvent(EPOCH + "101", "update", "{\"targetTemp\":72,\"lastUpdated\":\"2024-05-01T12:00:05.000Z\"}", 0));
+        mirror.accept(new SseEvent(null, "ping", "{\"time\":1}", 0));
+        mirror.accept(new SseEvent(EPOCH + "102", "update", "{\"fanMode\":\"on\",\"lastUpdated\":\"2024-05-01T12:00:09.000Z\"}", 0));
+
+        String server = SNAPSHOT.replace("\"targetTemp\":70", "\"targetTemp\":72")
+                .replace("\"fanMode\":\"auto\"", "\"fanMode\":\"on\"")
+                .replace("12:00:00.000Z", "12:00:09.000Z");
+        Assert.assertEquals(mirror.verifyAgainst(server), List.of());
+        Assert.assertEquals(mirror.getLastEventId(), EPOCH + "102");
+        Assert.assertEquals(mirror.getGaps(), 0);
+    }
+
+    @Test(description = "A hole in the event ids counts as a lost event")
+    public void testGapDetected() {
+        ThermostatMirror mirror = mirror();
+        mirror.accept(new SseEvent(EPOCH + "100", "snapshot", SNAPSHOT, 0));
+        mirror.accept(new SseEvent(EPOCH + "102", "update", "{\"targetTemp\":74}", 0));
+
+        Assert.assertEquals(mirror.getGaps(), 1);
+    }
+
+    @Test(description = "An update from another epoch counts as a lost event, a snapshot starts the new epoch")
+    public void testEpochChange() {
+        ThermostatMirror mirror = mirror();
+        mirror.accept(new SseEvent(EPOCH + "100", "snapshot", SNAPSHOT, 0));
+        mirror.accept(new SseEvent("0c1d2e3f.1-101", "update", "{\"targetTemp\":74}", 0));
+        Assert.assertEquals(mirror.getGaps(), 1, "same seq, different server process");
+
+        mirror.accept(new SseEvent("0c1d2e3f.2-0", "snapshot", SNAPSHOT, 0));
+        mirror.accept(new SseEvent("0c1d2e3f.2-1", "update", "{\"targetTemp\":75}", 0));
+        Assert.assertEquals(mirror.getGaps(), 1);
+        Assert.assertEquals(mirror.getLastEventId(), "0c1d2e3f.2-1");
+    }
+
+    @Test(description = "An update before any snapshot counts as a lost event")
+    public void testUpdateWithoutBase() {
+        ThermostatMirror mirror = mirror();
+        mirror.accept(new SseEvent(EPOCH + "101", "update", "{\"targetTemp\":74}", 0));
+
+        Assert.assertEquals(mirror.getGaps(), 1);
+    }
+}
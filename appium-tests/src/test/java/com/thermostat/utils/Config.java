@@ -1,5 +1,9 @@
 package com.thermostat.utils;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Centralizes all configurable values.
  * Override APP_BASE_URL via Maven: mvn test -Dapp.base.url=http://localhost:4000
@@ -12,6 +16,27 @@ public class Config {
     public static final String APPIUM_SERVER_URL =
             System.getProperty("appium.server.url", "http://127.0.0.1:4723");
 
+    /**
+     * Comma-separated Appium endpoints to spread sessions across.
+     * Falls back to the single APPIUM_SERVER_URL when not set.
+     * Example: mvn test -Dappium.server.urls=http://127.0.0.1:4723,http://127.0.0.1:4724
+     */
+    public static final List<String> APPIUM_SERVER_URLS = Arrays.stream(
+                    System.getProperty("appium.server.urls", APPIUM_SERVER_URL).split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toUnmodifiableList());
+
+    /** Concurrent sessions each Appium node is allowed to run */
+    public static final int APPIUM_MAX_SESSIONS_PER_NODE =
+            Integer.getInteger("appium.max.sessions.per.node", 1);
+
+    /** Seconds between health checks of an Appium node marked as down */
+    public static final int APPIUM_HEALTH_CHECK_SECONDS = 10;
+
+    /** How many nodes to try before giving up on creating a session */
+    public static final int APPIUM_SESSION_ATTEMPTS = 3;
+
     /** Max seconds to wait for an element to appear */
     public static final int EXPLICIT_WAIT_SECONDS = 15;
 
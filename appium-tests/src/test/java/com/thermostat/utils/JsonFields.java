@@ -0,0 +1,134 @@
+package com.thermostat.utils;
+
+/**
+ * Tiny field extractors for the flat JSON documents the thermostat API returns.
+ *
+ * The API only ever sends one level of primitives (numbers and strings), so a
+ * full JSON library would be overkill. These helpers find the first occurrence
+ * of a field and read its value — good enough for tooling and assertions.
+ */
+public final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    /** Returns true if the document contains the given field name. */
+    public static boolean has(String json, String field) {
+        return json.indexOf("\"" + field + "\":") >= 0;
+    }
+
+    /** Reads an integer field, e.g. {@code "targetTemp":72}. Allows a leading minus sign. */
+    public static int getInt(String json, String field) {
+        return getInt(json, field, 0);
+    }
+
+    /** Reads an integer field starting the search at {@code fromIndex}. */
+    public static int getInt(String json, String field, int fromIndex) {
+        String pattern = "\"" + field + "\":";
+        int idx = json.indexOf(pattern, fromIndex);
+        if (idx < 0) {
+            throw new IllegalArgumentException("Field '" + field + "' not found in: " + json);
+        }
+        int i = idx + pattern.length();
+        while (i < json.length() && json.charAt(i) == ' ') i++;
+        boolean negative = i < json.length() && json.charAt(i) == '-';
+        if (negative) i++;
+        int value = 0;
+        int digits = 0;
+        while (i < json.length() && Character.isDigit(json.charAt(i))) {
+            value = value * 10 + (json.charAt(i) - '0');
+            i++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Field '" + field + "' is not an integer in: " + json);
+        }
+        return negative ? -value : value;
+    }
+
+    /** Reads a string field, e.g. {@code "systemMode":"cool"}, decoding any escapes. */
+    public static String getString(String json, String field) {
+        return getString(json, field, 0);
+    }
+
+    /** Reads a string field starting the search at {@code fromIndex}. */
+    public static String getString(String json, String field, int fromIndex) {
+        String pattern = "\"" + field + "\":\"";
+        int start = json.indexOf(pattern, fromIndex);
+        if (start < 0) {
+            throw new IllegalArgumentException("Field '" + field + "' not found in: " + json);
+        }
+        StringBuilder value = new StringBuilder();
+        int end = readString(json, start + pattern.length() - 1, value);
+        if (end < 0) {
+            throw new IllegalArgumentException("Field '" + field + "' is not a valid string in: " + json);
+        }
+        return value.toString();
+    }
+
+    /**
+     * Decodes the string literal whose opening quote is at {@code quoteIndex}
+     * into {@code out}.
+     *
+     * @return the index just past the closing quote, or -1 if the literal is
+     *         unterminated or has a bad escape
+     */
+    public static int readString(String json, int quoteIndex, StringBuilder out) {
+        if (quoteIndex >= json.length() || json.charAt(quoteIndex) != '"') return -1;
+        int i = quoteIndex + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') return i;
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (i >= json.length()) return -1;
+            char e = json.charAt(i++);
+            switch (e) {
+                case '"', '\\', '/' -> out.append(e);
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (i + 4 > json.length()) return -1;
+                    try {
+                        out.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        return -1;
+                    }
+                    i += 4;
+                }
+                default -> {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Appends {@code value} as a quoted JSON string, escaping quotes, backslashes and control characters. */
+    public static StringBuilder appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
+}
@@ -0,0 +1,77 @@
+package com.thermostat.utils;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the {@code Server-Timing} header the API sends on every response, e.g.
+ *
+ *   Server-Timing: validate;dur=0.21, db-update;dur=41.80, db-reread;dur=23.05, total;dur=66.40
+ *
+ * into phase name → milliseconds. Entries without a {@code dur}, or with one
+ * that isn't a number, are ignored; a quoted {@code desc} may contain commas.
+ * A phase reported twice is summed.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private ServerTiming() {
+    }
+
+    /** All phases reported on this response, in header order. Empty if the header is missing. */
+    public static Map<String, Double> phases(HttpResponse<?> response) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        for (String header : response.headers().allValues(HEADER)) {
+            parse(header, phases);
+        }
+        return phases;
+    }
+
+    public static Map<String, Double> parse(String header) {
+        return parse(header, new LinkedHashMap<>());
+    }
+
+    private static Map<String, Double> parse(String header, Map<String, Double> into) {
+        for (String metric : splitOutsideQuotes(header, ',')) {
+            List<String> parts = splitOutsideQuotes(metric, ';');
+            String name = parts.get(0).trim();
+            if (name.isEmpty()) continue;
+            for (int i = 1; i < parts.size(); i++) {
+                String param = parts.get(i);
+                int eq = param.indexOf('=');
+                if (eq < 0 || !param.substring(0, eq).trim().equalsIgnoreCase("dur")) continue;
+                try {
+                    into.merge(name, Double.parseDouble(param.substring(eq + 1).trim()), Double::sum);
+                } catch (NumberFormatException ignored) {
+                    // Malformed duration — skip this metric rather than fail the request
+                }
+                break; // only the first dur of a metric counts
+            }
+        }
+        return into;
+    }
+
+    // Splits on `separator`, except inside a quoted desc="..." (which may hold commas and semicolons)
+    private static List<String> splitOutsideQuotes(String s, char separator) {
+        List<String> parts = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && quoted) {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                parts.add(s.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(s.substring(start));
+        return parts;
+    }
+}
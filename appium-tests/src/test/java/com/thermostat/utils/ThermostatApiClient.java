@@ -0,0 +1,191 @@
+package com.thermostat.utils;
+
+import com.thermostat.codec.ThermostatBinaryCodec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Thin wrapper around {@link HttpClient} for the thermostat REST API.
+ *
+ * Used by the load-generation tooling (and anything else that needs to talk to
+ * the API without a browser). One instance is safe to share between threads —
+ * the underlying HttpClient pools connections.
+ *
+ * ENDPOINTS:
+ *  - GET   /api/thermostats
+ *  - GET   /api/thermostats/:id
+ *  - PATCH /api/thermostats/:id
+ *  - PUT   /api/thermostats/:id          (create or replace — seeds test fixtures)
+ *  - PATCH /api/thermostats          (bulk: {"updates":[{"id":1,"changes":{…}},…]})
+ *  - GET   /api/thermostats/:id/poll?since=…
+ *
+ * Every response is also handed to an optional observer together with its
+ * endpoint name (e.g. "PATCH /api/thermostats/:id") — the load tools use this
+ * to collect the Server-Timing breakdown of each call.
+ *
+ * The *Binary variants negotiate the compact encoding
+ * ({@link ThermostatBinaryCodec#MEDIA_TYPE}) instead of JSON.
+ */
+public class ThermostatApiClient {
+
+    public static final String LIST = "GET /api/thermostats";
+    public static final String GET = "GET /api/thermostats/:id";
+    public static final String POLL = "GET /api/thermostats/:id/poll";
+    public static final String PATCH = "PATCH /api/thermostats/:id";
+    public static final String REPLACE = "PUT /api/thermostats/:id";
+    public static final String BULK_UPDATE = "PATCH /api/thermostats";
+
+    private static final BiConsumer<String, HttpResponse<?>> NO_OBSERVER = (endpoint, response) -> { };
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final BiConsumer<String, HttpResponse<?>> responseObserver;
+
+    public ThermostatApiClient(String baseUrl) {
+        this(baseUrl, NO_OBSERVER);
+    }
+
+    public ThermostatApiClient(String baseUrl, BiConsumer<String, HttpResponse<?>> responseObserver) {
+        // The API is plain HTTP/1.1 — skip the h2c upgrade attempt on every new connection
+        this(baseUrl, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(Config.EXPLICIT_WAIT_SECONDS))
+                .build(), responseObserver);
+    }
+
+    public ThermostatApiClient(String baseUrl, HttpClient http, BiConsumer<String, HttpResponse<?>> responseObserver) {
+        this.baseUrl = baseUrl;
+        this.http = http;
+        this.responseObserver = responseObserver;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public HttpClient getHttpClient() {
+        return http;
+    }
+
+    /** GET /api/thermostats */
+    public HttpResponse<String> list() throws IOException, InterruptedException {
+        return send(LIST, get("/api/thermostats").build());
+    }
+
+    /** GET /api/thermostats/:id */
+    public HttpResponse<String> get(int id) throws IOException, InterruptedException {
+        return send(GET, get("/api/thermostats/" + id).build());
+    }
+
+    /**
+     * GET /api/thermostats/:id/poll?since=…
+     * Returns 304 with an empty body when nothing changed after {@code sinceMs}.
+     */
+    public HttpResponse<String> poll(int id, long sinceMs) throws IOException, InterruptedException {
+        return send(POLL, get("/api/thermostats/" + id + "/poll?since=" + sinceMs).build());
+    }
+
+    /** PATCH /api/thermostats/:id with a partial JSON body, e.g. {@code {"targetTemp":72}}. */
+    public HttpResponse<String> patch(int id, String jsonBody) throws IOException, InterruptedException {
+        return send(PATCH, patchRequest(id, jsonBody));
+    }
+
+    /** PUT /api/thermostats/:id — creates the thermostat, or replaces every field of it. */
+    public HttpResponse<String> replace(int id, String jsonBody) throws IOException, InterruptedException {
+        return send(REPLACE, request("/api/thermostats/" + id)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build());
+    }
+
+    /** Non-blocking variant of {@link #poll} — used by the load generator to drive many devices per thread. */
+    public CompletableFuture<HttpResponse<String>> pollAsync(int id, long sinceMs) {
+        return sendAsync(POLL, get("/api/thermostats/" + id + "/poll?since=" + sinceMs).build());
+    }
+
+    /** Non-blocking variant of {@link #list} — a dashboard refresh. */
+    public CompletableFuture<HttpResponse<String>> listAsync() {
+        return sendAsync(LIST, get("/api/thermostats").build());
+    }
+
+    /** Non-blocking variant of {@link #get}. */
+    public CompletableFuture<HttpResponse<String>> getAsync(int id) {
+        return sendAsync(GET, get("/api/thermostats/" + id).build());
+    }
+
+    /** Non-blocking variant of {@link #patch}. */
+    public CompletableFuture<HttpResponse<String>> patchAsync(int id, String jsonBody) {
+        return sendAsync(PATCH, patchRequest(id, jsonBody));
+    }
+
+    /**
+     * PATCH /api/thermostats with a bulk body. The response always lists one
+     * result per update — see {@link com.thermostat.bulk.BulkUpdateClient} for batching.
+     */
+    public CompletableFuture<HttpResponse<String>> bulkUpdateAsync(String jsonBody) {
+        return sendAsync(BULK_UPDATE, request("/api/thermostats")
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build());
+    }
+
+    /** {@link #poll} asking for the compact binary encoding; the body decodes with {@link ThermostatBinaryCodec}. */
+    public HttpResponse<byte[]> pollBinary(int id, long sinceMs) throws IOException, InterruptedException {
+        return sendBytes(POLL, get("/api/thermostats/" + id + "/poll?since=" + sinceMs)
+                .header("Accept", ThermostatBinaryCodec.MEDIA_TYPE)
+                .build());
+    }
+
+    /** {@link #patch} with a binary body of just the changed fields, answered in binary too. */
+    public HttpResponse<byte[]> patchBinary(int id, byte[] body, int offset, int length)
+            throws IOException, InterruptedException {
+        return sendBytes(PATCH, request("/api/thermostats/" + id)
+                .header("Content-Type", ThermostatBinaryCodec.MEDIA_TYPE)
+                .header("Accept", ThermostatBinaryCodec.MEDIA_TYPE)
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(body, offset, length))
+                .build());
+    }
+
+    /** Starts a request builder for {@code path} relative to the base URL. */
+    public HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder().uri(URI.create(baseUrl + path));
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        responseObserver.accept(endpoint, response);
+        return response;
+    }
+
+    private HttpResponse<byte[]> sendBytes(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        responseObserver.accept(endpoint, response);
+        return response;
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(String endpoint, HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    responseObserver.accept(endpoint, response);
+                    return response;
+                });
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest patchRequest(int id, String jsonBody) {
+        return request("/api/thermostats/" + id)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+    }
+}
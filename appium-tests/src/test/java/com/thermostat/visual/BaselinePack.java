@@ -0,0 +1,216 @@
+package com.thermostat.visual;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A group of same-sized baseline screenshots stored in one compact file —
+ * e.g. the dial at every target temperature in one system mode.
+ *
+ * Neighbouring frames of a sweep differ in a few thousand pixels (a bit more
+ * arc, other digits). So every frame is stored as its XOR with the frame
+ * before it — zero wherever they agree — deflated; the first frame is XORed
+ * with nothing. Decoding is one inflate and one XOR pass per frame, with no
+ * PNG decoder involved. {@link #get} carries on from the last frame it
+ * decoded, so reading a sweep in order decodes each frame once.
+ *
+ * FILE LAYOUT:
+ *   int magic, int width, int height, int frames,
+ *   then per frame: UTF name, int length, deflated XOR bytes (channel planes A, R, G, B)
+ */
+public final class BaselinePack {
+
+    private static final int MAGIC = 0x54564231; // "TVB1"
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, byte[]> frames = new HashMap<>();
+    private int width;
+    private int height;
+
+    // Last frame decoded, so in-order reads only decode forward
+    private int cursor = -1;
+    private int[] cursorPixels;
+
+    /** Loads a pack, or returns an empty one if the file doesn't exist yet. */
+    public static BaselinePack read(Path file) throws IOException {
+        BaselinePack pack = new BaselinePack();
+        if (!Files.exists(file)) return pack;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a baseline pack");
+            pack.width = in.readInt();
+            pack.height = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                pack.names.add(name);
+                pack.frames.put(name, data);
+            }
+        }
+        return pack;
+    }
+
+    public synchronized void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(names.size());
+            for (String name : names) {
+                byte[] data = frames.get(name);
+                out.writeUTF(name);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+    }
+
+    /** Adds a frame at the end, or replaces one. The first frame added fixes the size. */
+    public synchronized void put(String name, PixelImage image) {
+        if (names.isEmpty()) {
+            width = image.getWidth();
+            height = image.getHeight();
+        } else if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException(String.format("Baseline '%s' is %dx%d, the pack holds %dx%d",
+                    name, image.getWidth(), image.getHeight(), width, height));
+        }
+
+        if (!frames.containsKey(name)) {
+            int[] previous = names.isEmpty() ? null : decodeUpTo(names.size() - 1);
+            frames.put(name, encode(image.getPixels(), previous));
+            names.add(name);
+            cursor = names.size() - 1;
+            cursorPixels = image.getPixels().clone();
+            return;
+        }
+
+        // The frame after this one is stored against it, so re-encode the whole chain
+        List<int[]> all = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            all.add(names.get(i).equals(name) ? image.getPixels().clone() : decodeUpTo(i));
+        }
+        for (int i = 0; i < names.size(); i++) {
+            frames.put(names.get(i), encode(all.get(i), i == 0 ? null : all.get(i - 1)));
+        }
+        cursor = -1;
+        cursorPixels = null;
+    }
+
+    /** The named frame, or null if the pack doesn't have it. */
+    public synchronized PixelImage get(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) return null;
+        return new PixelImage(width, height, decodeUpTo(index).clone());
+    }
+
+    public synchronized boolean contains(String name) {
+        return frames.containsKey(name);
+    }
+
+    /** Frame names in the order they were added. */
+    public synchronized List<String> names() {
+        return List.copyOf(names);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /** Bytes the frames take in the file. */
+    public synchronized long getStoredBytes() {
+        return frames.values().stream().mapToLong(data -> data.length).sum();
+    }
+
+    /** Bytes the same frames take as raw ARGB. */
+    public synchronized long getRawBytes() {
+        return 4L * width * height * names.size();
+    }
+
+    // Pixels of frame `index`, decoding forward from the cursor (or the start)
+    private int[] decodeUpTo(int index) {
+        if (cursor > index || cursorPixels == null) {
+            cursor = -1;
+            cursorPixels = null;
+        }
+        while (cursor < index) {
+            cursorPixels = decode(frames.get(names.get(cursor + 1)), cursorPixels);
+            cursor++;
+        }
+        return cursorPixels;
+    }
+
+    // ── Encoding ─────────────────────────────────────────────────────────────
+
+    private static byte[] encode(int[] pixels, int[] base) {
+        int n = pixels.length;
+        byte[] planes = new byte[4 * n];
+        for (int i = 0; i < n; i++) {
+            int v = base == null ? pixels[i] : pixels[i] ^ base[i];
+            planes[i] = (byte) (v >>> 24);
+            planes[n + i] = (byte) (v >>> 16);
+            planes[2 * n + i] = (byte) (v >>> 8);
+            planes[3 * n + i] = (byte) v;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(planes);
+            deflater.finish();
+            byte[] out = new byte[planes.length / 4 + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) out = Arrays.copyOf(out, out.length * 2);
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private int[] decode(byte[] data, int[] base) {
+        int n = width * height;
+        byte[] planes = new byte[4 * n];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            int length = 0;
+            while (length < planes.length && !inflater.finished()) {
+                int read = inflater.inflate(planes, length, planes.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            if (length != planes.length) {
+                throw new IllegalStateException("Corrupt baseline frame: " + length + " of " + planes.length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt baseline frame", e);
+        } finally {
+            inflater.end();
+        }
+
+        int[] pixels = new int[n];
+        for (int i = 0; i < n; i++) {
+            int v = (planes[i] & 0xFF) << 24 | (planes[n + i] & 0xFF) << 16
+                    | (planes[2 * n + i] & 0xFF) << 8 | (planes[3 * n + i] & 0xFF);
+            pixels[i] = base == null ? v : v ^ base[i];
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,260 @@
+package com.thermostat.visual;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RadialGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DiffBenchmark — times a full dial sweep's worth of visual comparisons
+ * without a browser.
+ *
+ * Draws a stand-in for the ThermostatRing dial with Java2D (arc, glow,
+ * number) for heat / cool / auto at 50–90° plus off: the same 124 frames
+ * {@code DialVisualTest} captures. Each frame is drawn twice — once as the
+ * baseline and once shifted by a fraction of a pixel, like two captures whose
+ * anti-aliasing came out slightly differently. Then it measures:
+ *
+ *  1. STORAGE: baselines as one PNG per frame vs one {@link BaselinePack} per
+ *     mode — bytes on disk, and time to load every frame back to pixels.
+ *  2. COMPARISON: every frame against its own baseline (should match) and
+ *     against the next degree's baseline (should differ), with
+ *       - naive:  BufferedImage.getRGB per pixel, one thread, no early stop
+ *       - engine: {@link ImageDiff} — int arrays, fork/join tiles, early stop
+ *     Both use the same perceptual tolerance, so their verdicts must agree.
+ *
+ * HOW TO RUN:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.thermostat.visual.DiffBenchmark
+ *
+ *   -Dvisual.scale   device pixel ratio of the frames (default 2, i.e. 640x640)
+ *
+ * The sweep runs twice and only the second is reported, so the JIT has warmed up.
+ */
+public class DiffBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(DiffBenchmark.class);
+
+    private static final String[] MODES = {"heat", "cool", "auto", "off"};
+    private static final Map<String, Color> MODE_COLORS = Map.of(
+            "heat", new Color(0xF2, 0x6B, 0x1D),
+            "cool", new Color(0x1D, 0x9B, 0xF2),
+            "auto", new Color(0x2E, 0xC2, 0x7E),
+            "off", new Color(0x5C, 0x63, 0x70));
+    private static final double SUBPIXEL_SHIFT = 0.35;
+
+    public static void main(String[] args) throws IOException {
+        int scale = Integer.getInteger("visual.scale", 2);
+
+        // ── Frames ──
+        Map<String, List<PixelImage>> baselines = new LinkedHashMap<>();
+        Map<String, List<PixelImage>> captures = new LinkedHashMap<>();
+        int frameCount = 0;
+        for (String mode : MODES) {
+            List<PixelImage> base = new ArrayList<>();
+            List<PixelImage> capture = new ArrayList<>();
+            int maxTemp = mode.equals("off") ? 50 : 90;
+            for (int temp = 50; temp <= maxTemp; temp++) {
+                base.add(drawDial(mode, temp, scale, 0));
+                capture.add(drawDial(mode, temp, scale, SUBPIXEL_SHIFT));
+            }
+            baselines.put(mode, base);
+            captures.put(mode, capture);
+            frameCount += base.size();
+        }
+        PixelImage first = baselines.get("heat").get(0);
+
+        String report = null;
+        for (int pass = 0; pass < 2; pass++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d frames of %dx%d%n%n", frameCount, first.getWidth(), first.getHeight()));
+            storage(sb, baselines);
+            sb.append(String.format("%n%-22s %7s %10s %10s %9s %12s %12s%n",
+                    "comparison", "pairs", "naive ms", "engine ms", "speed-up", "naive diff", "engine diff"));
+            compare(sb, "same frame (match)", baselines, captures, 0);
+            compare(sb, "next degree (differ)", baselines, captures, 1);
+            report = sb.toString();
+        }
+        log.info("Visual diff benchmark\n{}", report);
+    }
+
+    // ── 1. Storage ───────────────────────────────────────────────────────────
+
+    private static void storage(StringBuilder sb, Map<String, List<PixelImage>> baselines) throws IOException {
+        long raw = 0;
+        long pngBytes = 0;
+        long packBytes = 0;
+        List<byte[]> pngs = new ArrayList<>();
+        List<BaselinePack> packs = new ArrayList<>();
+        for (List<PixelImage> frames : baselines.values()) {
+            BaselinePack pack = new BaselinePack();
+            for (int i = 0; i < frames.size(); i++) {
+                PixelImage frame = frames.get(i);
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                ImageIO.write(frame.toBufferedImage(), "png", png);
+                pngs.add(png.toByteArray());
+                pngBytes += png.size();
+                pack.put(String.valueOf(50 + i), frame);
+                raw += 4L * frame.getWidth() * frame.getHeight();
+            }
+            packBytes += pack.getStoredBytes();
+            packs.add(pack);
+        }
+
+        long t0 = System.nanoTime();
+        long checksum = 0;
+        for (byte[] png : pngs) {
+            checksum += PixelImage.fromBufferedImage(ImageIO.read(new ByteArrayInputStream(png))).getPixels()[0];
+        }
+        long t1 = System.nanoTime();
+        for (BaselinePack pack : packs) {
+            for (String name : pack.names()) checksum -= pack.get(name).getPixels()[0];
+        }
+        long t2 = System.nanoTime();
+        if (checksum != 0) throw new IllegalStateException("PNG and pack frames decoded differently");
+
+        sb.append(String.format("%-22s %12s %12s%n", "baselines", "KB", "load ms"));
+        sb.append(String.format("%-22s %12d %12s%n", "raw ARGB", raw / 1024, "-"));
+        sb.append(String.format("%-22s %12d %12.1f%n", "PNG per frame", pngBytes / 1024, (t1 - t0) / 1e6));
+        sb.append(String.format("%-22s %12d %12.1f%n", "pack per mode", packBytes / 1024, (t2 - t1) / 1e6));
+    }
+
+    // ── 2. Comparison ────────────────────────────────────────────────────────
+
+    /** Compares capture i with baseline i + offset (within each mode) both ways. */
+    private static void compare(StringBuilder sb, String label, Map<String, List<PixelImage>> baselines,
+                                Map<String, List<PixelImage>> captures, int offset) {
+        ImageDiff diff = new ImageDiff();
+        List<PixelImage[]> pairs = new ArrayList<>();
+        List<BufferedImage[]> awtPairs = new ArrayList<>();
+        for (String mode : MODES) {
+            List<PixelImage> base = baselines.get(mode);
+            List<PixelImage> capture = captures.get(mode);
+            for (int i = 0; i + offset < base.size(); i++) {
+                pairs.add(new PixelImage[]{base.get(i + offset), capture.get(i)});
+                awtPairs.add(new BufferedImage[]{base.get(i + offset).toBufferedImage(), capture.get(i).toBufferedImage()});
+            }
+        }
+        if (pairs.isEmpty()) return;
+
+        long t0 = System.nanoTime();
+        int naiveDiffering = 0;
+        for (BufferedImage[] pair : awtPairs) {
+            if (!naiveMatches(pair[0], pair[1])) naiveDiffering++;
+        }
+        long t1 = System.nanoTime();
+        int engineDiffering = 0;
+        for (PixelImage[] pair : pairs) {
+            if (!diff.compare(pair[0], pair[1]).matches()) engineDiffering++;
+        }
+        long t2 = System.nanoTime();
+
+        double naiveMs = (t1 - t0) / 1e6;
+        double engineMs = (t2 - t1) / 1e6;
+        sb.append(String.format("%-22s %7d %10.1f %10.1f %8.0fx %12d %12d%n",
+                label, pairs.size(), naiveMs, engineMs, naiveMs / engineMs, naiveDiffering, engineDiffering));
+    }
+
+    /** The straightforward version: same tolerance as {@link ImageDiff}, one getRGB call per pixel, no shortcuts. */
+    private static boolean naiveMatches(BufferedImage expected, BufferedImage actual) {
+        int w = expected.getWidth();
+        int h = expected.getHeight();
+        double maxDelta = 35215 * ImageDiff.DEFAULT_THRESHOLD * ImageDiff.DEFAULT_THRESHOLD;
+        int slack = ImageDiff.channelSlack(ImageDiff.DEFAULT_THRESHOLD);
+        long mismatches = 0;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                if (ImageDiff.yiqDelta(e, a) <= maxDelta) continue;
+                if (naiveEdgeBlend(expected, x, y, a, slack) && naiveEdgeBlend(actual, x, y, e, slack)) continue;
+                mismatches++;
+            }
+        }
+        return mismatches <= (long) Math.floor(ImageDiff.DEFAULT_MAX_MISMATCH_RATIO * w * h);
+    }
+
+    // Copies the 3x3 block with getRGB, then applies the engine's own rule to it
+    private static boolean naiveEdgeBlend(BufferedImage image, int x, int y, int color, int slack) {
+        int[] block = new int[9];
+        int x0 = Math.max(0, x - 1);
+        int y0 = Math.max(0, y - 1);
+        int w = Math.min(image.getWidth() - 1, x + 1) - x0 + 1;
+        int h = Math.min(image.getHeight() - 1, y + 1) - y0 + 1;
+        for (int ny = 0; ny < h; ny++) {
+            for (int nx = 0; nx < w; nx++) block[ny * w + nx] = image.getRGB(x0 + nx, y0 + ny);
+        }
+        return ImageDiff.isEdgeBlend(block, w, h, x - x0, y - y0, color, slack);
+    }
+
+    // ── Drawing ──────────────────────────────────────────────────────────────
+
+    /** A rough Java2D copy of ThermostatRing: glow, track, active arc, mode label, number, indoor reading. */
+    static PixelImage drawDial(String mode, int temp, int scale, double shift) {
+        int size = 320 * scale;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            Color color = MODE_COLORS.get(mode);
+            boolean on = !mode.equals("off");
+
+            g.setColor(new Color(0x0F, 0x11, 0x15));
+            g.fillRect(0, 0, size, size);
+            g.setPaint(new RadialGradientPaint(size / 2f, size / 2f, size / 2f, new float[]{0f, 1f},
+                    new Color[]{new Color(color.getRed(), color.getGreen(), color.getBlue(), 60), new Color(0, 0, 0, 0)}));
+            g.fillRect(0, 0, size, size);
+
+            g.translate(shift, shift);
+            double stroke = 12 * scale;
+            double inset = stroke / 2;
+            Arc2D.Double track = new Arc2D.Double(inset, inset, size - stroke, size - stroke, 225, -270, Arc2D.OPEN);
+            g.setStroke(new BasicStroke((float) stroke, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(new Color(255, 255, 255, 13));
+            g.draw(track);
+            if (on) {
+                double extent = -270.0 * (temp - 50) / 40;
+                g.setColor(color);
+                g.draw(new Arc2D.Double(inset, inset, size - stroke, size - stroke, 225, extent, Arc2D.OPEN));
+            }
+
+            g.setColor(on ? color : new Color(255, 255, 255, 80));
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 11 * scale));
+            drawCentered(g, mode.toUpperCase(), size, size * 0.33);
+            g.setColor(on ? Color.WHITE : new Color(255, 255, 255, 77));
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, (on ? 96 : 72) * scale));
+            drawCentered(g, on ? String.valueOf(temp) : "--", size, size * 0.6);
+            g.setColor(new Color(255, 255, 255, 102));
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14 * scale));
+            drawCentered(g, "Indoor", size, size * 0.72);
+            g.setColor(new Color(255, 255, 255, 204));
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 20 * scale));
+            drawCentered(g, "72°", size, size * 0.8);
+        } finally {
+            g.dispose();
+        }
+        return PixelImage.fromBufferedImage(image);
+    }
+
+    private static void drawCentered(Graphics2D g, String text, int size, double baseline) {
+        float x = (size - g.getFontMetrics().stringWidth(text)) / 2f;
+        g.drawString(text, x, (float) baseline);
+    }
+}
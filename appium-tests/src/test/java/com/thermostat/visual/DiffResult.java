@@ -0,0 +1,59 @@
+package com.thermostat.visual;
+
+/**
+ * Outcome of one {@link ImageDiff#compare}.
+ *
+ * After an early stop the mismatch count is only a lower bound — enough to
+ * know the images differ, not by how much. {@link ImageDiff#diffImage} does
+ * the full count when it's needed for a report.
+ */
+public final class DiffResult {
+
+    private final long pixels;
+    private final long mismatchedPixels;
+    private final boolean matches;
+    private final boolean stoppedEarly;
+    private final String sizeMismatch;
+
+    DiffResult(long pixels, long mismatchedPixels, boolean matches, boolean stoppedEarly, String sizeMismatch) {
+        this.pixels = pixels;
+        this.mismatchedPixels = mismatchedPixels;
+        this.matches = matches;
+        this.stoppedEarly = stoppedEarly;
+        this.sizeMismatch = sizeMismatch;
+    }
+
+    static DiffResult sizeMismatch(PixelImage expected, PixelImage actual) {
+        return new DiffResult(0, 0, false, false, String.format("expected %dx%d, got %dx%d",
+                expected.getWidth(), expected.getHeight(), actual.getWidth(), actual.getHeight()));
+    }
+
+    public boolean matches() {
+        return matches;
+    }
+
+    /** Pixels that differ beyond the tolerance (a lower bound if {@link #isStoppedEarly()}). */
+    public long getMismatchedPixels() {
+        return mismatchedPixels;
+    }
+
+    public double getMismatchRatio() {
+        return pixels == 0 ? 1 : (double) mismatchedPixels / pixels;
+    }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public boolean isSizeMismatch() {
+        return sizeMismatch != null;
+    }
+
+    @Override
+    public String toString() {
+        if (sizeMismatch != null) return "different size (" + sizeMismatch + ")";
+        return String.format("%s (%s%d of %d pixels differ%s)",
+                matches ? "match" : "DIFFERENT", stoppedEarly ? "at least " : "",
+                mismatchedPixels, pixels, stoppedEarly ? ", stopped early" : "");
+    }
+}
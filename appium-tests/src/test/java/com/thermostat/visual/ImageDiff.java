@@ -0,0 +1,245 @@
+package com.thermostat.visual;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares two screenshots the way a person looking at them would.
+ *
+ * PERCEPTUAL TOLERANCE:
+ *  - Colours are compared in YIQ space, which weighs brightness above hue the
+ *    way the eye does (the same metric pixelmatch uses). {@code threshold} is
+ *    the largest difference still counted as "the same colour", as a fraction
+ *    of black vs white: 0 = exact, 0.1 = default, 1 = anything goes.
+ *  - A differing pixel whose colour lies within the range of colours around it
+ *    in the other image — and the other way round — is an edge drawn a
+ *    fraction of a pixel over (anti-aliasing, sub-pixel layout). It isn't counted.
+ *  - Two images match when at most {@code maxMismatchRatio} of their pixels differ.
+ *
+ * SPEED:
+ *  - The image is cut into square tiles that are compared in parallel on a
+ *    fork/join pool.
+ *  - Identical pixels are skipped before any colour maths; between two
+ *    screenshots of the same state that is nearly all of them.
+ *  - All tiles share one mismatch counter. Once it passes the budget the
+ *    answer can only be "different", so every tile stops where it is.
+ */
+public final class ImageDiff {
+
+    public static final double DEFAULT_THRESHOLD = 0.1;
+    public static final double DEFAULT_MAX_MISMATCH_RATIO = 0.001;
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    // YIQ distance between black and white — thresholds are relative to it
+    private static final double MAX_YIQ_DELTA = 35215;
+
+    private static final int MISMATCH_COLOR = 0xFFFF0000;
+
+    private final double maxDelta;
+    private final int channelSlack;
+    private final double maxMismatchRatio;
+    private final int tileSize;
+    private final ForkJoinPool pool;
+
+    public ImageDiff() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MAX_MISMATCH_RATIO);
+    }
+
+    public ImageDiff(double threshold, double maxMismatchRatio) {
+        this(threshold, maxMismatchRatio, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public ImageDiff(double threshold, double maxMismatchRatio, int tileSize, ForkJoinPool pool) {
+        if (threshold < 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold must be between 0 and 1, was " + threshold);
+        }
+        if (maxMismatchRatio < 0 || maxMismatchRatio > 1) {
+            throw new IllegalArgumentException("maxMismatchRatio must be between 0 and 1, was " + maxMismatchRatio);
+        }
+        if (tileSize < 1) throw new IllegalArgumentException("tileSize must be positive, was " + tileSize);
+        this.maxDelta = MAX_YIQ_DELTA * threshold * threshold;
+        this.channelSlack = channelSlack(threshold);
+        this.maxMismatchRatio = maxMismatchRatio;
+        this.tileSize = tileSize;
+        this.pool = pool;
+    }
+
+    /** Compares {@code actual} with {@code expected}, stopping as soon as the answer is "different". */
+    public DiffResult compare(PixelImage expected, PixelImage actual) {
+        if (!expected.sameSize(actual)) return DiffResult.sizeMismatch(expected, actual);
+        return run(expected, actual, null);
+    }
+
+    /**
+     * Compares every pixel (no early stop) and returns {@code expected} faded,
+     * with each counted mismatch painted red — for a failed comparison's report.
+     */
+    public PixelImage diffImage(PixelImage expected, PixelImage actual) {
+        if (!expected.sameSize(actual)) {
+            throw new IllegalArgumentException("Images differ in size: " + DiffResult.sizeMismatch(expected, actual));
+        }
+        int[] marks = Arrays.copyOf(expected.getPixels(), expected.getPixels().length);
+        for (int i = 0; i < marks.length; i++) marks[i] = fade(marks[i]);
+        run(expected, actual, marks);
+        return new PixelImage(expected.getWidth(), expected.getHeight(), marks);
+    }
+
+    private DiffResult run(PixelImage expected, PixelImage actual, int[] marks) {
+        long pixels = (long) expected.getWidth() * expected.getHeight();
+        long budget = (long) Math.floor(maxMismatchRatio * pixels);
+        Comparison comparison = new Comparison(expected, actual, marks, marks == null ? budget : Long.MAX_VALUE);
+        pool.invoke(new TileRange(comparison, 0, comparison.tileCount));
+
+        long mismatches = comparison.mismatches.get();
+        boolean matches = mismatches <= budget;
+        return new DiffResult(pixels, mismatches, matches, !matches && marks == null, null);
+    }
+
+    // ── Tiles ────────────────────────────────────────────────────────────────
+
+    /** Splits a range of tiles in half until each task has one tile. */
+    private static final class TileRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Comparison comparison;
+        private final int from;
+        private final int to;
+
+        TileRange(Comparison comparison, int from, int to) {
+            this.comparison = comparison;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                comparison.compareTile(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileRange(comparison, from, mid), new TileRange(comparison, mid, to));
+            }
+        }
+    }
+
+    /** One expected/actual pair being compared, shared by all of its tile tasks. */
+    private final class Comparison {
+
+        final int[] expected;
+        final int[] actual;
+        final int[] marks;
+        final int width;
+        final int height;
+        final int tilesX;
+        final int tileCount;
+        final long stopAfter;
+        final AtomicLong mismatches = new AtomicLong();
+
+        Comparison(PixelImage expected, PixelImage actual, int[] marks, long stopAfter) {
+            this.expected = expected.getPixels();
+            this.actual = actual.getPixels();
+            this.marks = marks;
+            this.width = expected.getWidth();
+            this.height = expected.getHeight();
+            this.tilesX = (width + tileSize - 1) / tileSize;
+            this.tileCount = tilesX * ((height + tileSize - 1) / tileSize);
+            this.stopAfter = stopAfter;
+        }
+
+        void compareTile(int tile) {
+            int x0 = (tile % tilesX) * tileSize;
+            int y0 = (tile / tilesX) * tileSize;
+            int x1 = Math.min(x0 + tileSize, width);
+            int y1 = Math.min(y0 + tileSize, height);
+
+            for (int y = y0; y < y1; y++) {
+                if (mismatches.get() > stopAfter) return;
+                int row = y * width;
+                int rowMismatches = 0;
+                for (int i = row + x0, end = row + x1; i < end; i++) {
+                    int e = expected[i];
+                    int a = actual[i];
+                    if (e == a || yiqDelta(e, a) <= maxDelta) continue;
+                    int x = i - row;
+                    if (isEdgeBlend(expected, x, y, a) && isEdgeBlend(actual, x, y, e)) continue;
+                    rowMismatches++;
+                    if (marks != null) marks[i] = MISMATCH_COLOR;
+                }
+                // One shared update per row keeps tiles from contending on every pixel
+                if (rowMismatches > 0) mismatches.addAndGet(rowMismatches);
+            }
+        }
+
+        // Whether `color` lies, channel by channel, within the colours of the 3x3
+        // block of `image` around (x, y) — i.e. could be a mix of what's drawn there
+        boolean isEdgeBlend(int[] image, int x, int y, int color) {
+            return ImageDiff.isEdgeBlend(image, width, height, x, y, color, channelSlack);
+        }
+    }
+
+    // ── Colour ───────────────────────────────────────────────────────────────
+
+    /** Slack, in channel levels, that {@code threshold} allows around a neighbourhood's colour range. */
+    static int channelSlack(double threshold) {
+        return (int) Math.sqrt(MAX_YIQ_DELTA * threshold * threshold);
+    }
+
+    static boolean isEdgeBlend(int[] image, int width, int height, int x, int y, int color, int slack) {
+        int minA = 255, minR = 255, minG = 255, minB = 255;
+        int maxA = 0, maxR = 0, maxG = 0, maxB = 0;
+        for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+            for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                int c = image[ny * width + nx];
+                int a = c >>> 24, r = (c >> 16) & 0xFF, g = (c >> 8) & 0xFF, b = c & 0xFF;
+                minA = Math.min(minA, a);
+                maxA = Math.max(maxA, a);
+                minR = Math.min(minR, r);
+                maxR = Math.max(maxR, r);
+                minG = Math.min(minG, g);
+                maxG = Math.max(maxG, g);
+                minB = Math.min(minB, b);
+                maxB = Math.max(maxB, b);
+            }
+        }
+        return within(color >>> 24, minA, maxA, slack)
+                && within((color >> 16) & 0xFF, minR, maxR, slack)
+                && within((color >> 8) & 0xFF, minG, maxG, slack)
+                && within(color & 0xFF, minB, maxB, slack);
+    }
+
+    private static boolean within(int value, int min, int max, int slack) {
+        return value >= min - slack && value <= max + slack;
+    }
+
+    /** Squared perceptual distance between two ARGB colours, each blended onto white first. */
+    static double yiqDelta(int p, int q) {
+        double a1 = (p >>> 24) / 255.0;
+        double a2 = (q >>> 24) / 255.0;
+        double r1 = blend((p >> 16) & 0xFF, a1);
+        double g1 = blend((p >> 8) & 0xFF, a1);
+        double b1 = blend(p & 0xFF, a1);
+        double r2 = blend((q >> 16) & 0xFF, a2);
+        double g2 = blend((q >> 8) & 0xFF, a2);
+        double b2 = blend(q & 0xFF, a2);
+
+        double y = (r1 - r2) * 0.29889531 + (g1 - g2) * 0.58662247 + (b1 - b2) * 0.11448223;
+        double i = (r1 - r2) * 0.59597799 - (g1 - g2) * 0.27417610 - (b1 - b2) * 0.32180189;
+        double iq = (r1 - r2) * 0.21147017 - (g1 - g2) * 0.52261711 + (b1 - b2) * 0.31114694;
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * iq * iq;
+    }
+
+    private static double blend(int channel, double alpha) {
+        return 255 + (channel - 255) * alpha;
+    }
+
+    // Expected image at 30% strength over white, so the red marks stand out
+    private static int fade(int argb) {
+        int r = 255 - (255 - ((argb >> 16) & 0xFF)) * 3 / 10;
+        int g = 255 - (255 - ((argb >> 8) & 0xFF)) * 3 / 10;
+        int b = 255 - (255 - (argb & 0xFF)) * 3 / 10;
+        return 0xFF000000 | r << 16 | g << 8 | b;
+    }
+}
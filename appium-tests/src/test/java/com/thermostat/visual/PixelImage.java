@@ -0,0 +1,79 @@
+package com.thermostat.visual;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A screenshot as one packed int per pixel ({@code 0xAARRGGBB}, row by row).
+ *
+ * {@link ImageDiff} and {@link BaselinePack} work on the raw array rather than
+ * on a BufferedImage, whose per-pixel {@code getRGB} goes through a colour
+ * model on every call.
+ */
+public final class PixelImage {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    /** Wraps {@code pixels} without copying — don't modify the array afterwards. */
+    public PixelImage(int width, int height, int[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length != width * height) {
+            throw new IllegalArgumentException(
+                    "Expected " + width + "x" + height + " pixels, got " + pixels.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /** Decodes a PNG, e.g. from {@code getScreenshotAs(OutputType.BYTES)}. */
+    public static PixelImage fromPng(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) throw new IOException("Not a readable image (" + png.length + " bytes)");
+        return fromBufferedImage(image);
+    }
+
+    public static PixelImage fromBufferedImage(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        return new PixelImage(w, h, image.getRGB(0, 0, w, h, null, 0, w));
+    }
+
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    public void writePng(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        ImageIO.write(toBufferedImage(), "png", file.toFile());
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /** The backing array — read it, don't modify it. */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public boolean sameSize(PixelImage other) {
+        return width == other.width && height == other.height;
+    }
+}
@@ -73,7 +73,7 @@ export function ThermostatRing({ currentTemp, targetTemp, mode, onTargetTempChan
         style={{ backgroundColor: modeColor, transform: 'scale(0.8)' }}
       />
 
-      <div className="relative flex items-center justify-center" style={{ width: size, height: size }}>
+      <div data-testid="dial" className="relative flex items-center justify-center" style={{ width: size, height: size }}>
         
         {/* The SVG Ring */}
         <svg 
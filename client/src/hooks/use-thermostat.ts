@@ -1,10 +1,9 @@
 import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import { api, buildUrl, type ThermostatUpdateInput, type ThermostatListResponse } from "@shared/routes";
 
-// Using a placeholder id of 1 for the demo, assuming a single main thermostat
-const THERMOSTAT_ID = 1;
-
-export function useThermostat() {
+// The dashboard shows the thermostat with this id, or the first one when it's
+// undefined (the app's normal single-thermostat setup)
+export function useThermostat(id?: number) {
   return useQuery({
     queryKey: [api.thermostats.list.path],
     queryFn: async () => {
@@ -24,7 +23,7 @@ export function useThermostat() {
       }
       return api.thermostats.list.responses[200].parse(await res.json());
     },
-    select: (data) => data[0], // Select the first thermostat for the dashboard
+    select: (data) => (id === undefined ? data[0] : data.find((t) => t.id === id)),
 
     // Poll the API every 5 seconds so the app automatically reflects
     // any changes the physical device reports (e.g. current temperature updates).
@@ -4,8 +4,15 @@ import { useThermostat, useUpdateThermostat } from "@/hooks/use-thermostat";
 import { ThermostatRing } from "@/components/ThermostatRing";
 import { Controls } from "@/components/Controls";
 
+// ?thermostat=<id> picks a thermostat other than the first — the browser
+// tests use it so each test class works on its own
+function selectedThermostatId(): number | undefined {
+  const id = Number(new URLSearchParams(window.location.search).get("thermostat"));
+  return Number.isInteger(id) && id > 0 ? id : undefined;
+}
+
 export default function Dashboard() {
-  const { data: thermostat, isLoading, isError } = useThermostat();
+  const { data: thermostat, isLoading, isError } = useThermostat(selectedThermostatId());
   const updateMutation = useUpdateThermostat();
 
   // Loading Skeleton
@@ -0,0 +1,203 @@
+import type { Thermostat } from "@shared/schema";
+
+// ─────────────────────────────────────────────────────
+// COMPACT BINARY ENCODING (opt-in)
+// Devices on cellular links can send and receive thermostats in a few
+// bytes instead of a full JSON document. Negotiated per request:
+//
+//   Accept: application/vnd.thermostat+binary        → binary response
+//   Content-Type: application/vnd.thermostat+binary  → binary PATCH body
+//
+// Layout (version 1):
+//   byte     version (1)
+//   byte     field mask — bit n set means field n follows
+//   fields, in bit order:
+//     0 id               varint
+//     1 name             varint length + UTF-8 bytes
+//     2 currentTemp      zigzag varint
+//     3 targetTemp       zigzag varint
+//     4 systemMode       enum code (1 heat, 2 cool, 3 auto, 4 off; 0 = string follows)
+//     5 fanMode          enum code (1 auto, 2 on; 0 = string follows)
+//     6 currentHumidity  zigzag varint
+//     7 lastUpdated      varint, epoch milliseconds
+//
+// A PATCH carries only the fields being changed — {"targetTemp":72} is 4 bytes.
+// The Java codec lives in appium-tests (com.thermostat.codec) and must stay in sync.
+// ─────────────────────────────────────────────────────
+
+export const BINARY_MEDIA_TYPE = "application/vnd.thermostat+binary";
+
+const VERSION = 1;
+
+const FIELDS = [
+  "id",
+  "name",
+  "currentTemp",
+  "targetTemp",
+  "systemMode",
+  "fanMode",
+  "currentHumidity",
+  "lastUpdated",
+] as const;
+
+const SYSTEM_MODES = ["heat", "cool", "auto", "off"];
+const FAN_MODES = ["auto", "on"];
+
+class Writer {
+  private bytes: number[] = [];
+
+  byte(b: number) {
+    this.bytes.push(b & 0xff);
+  }
+
+  // Unsigned LEB128. Uses arithmetic, not bit ops, so epoch milliseconds (> 2^32) survive.
+  varint(n: number) {
+    while (n >= 0x80) {
+      this.bytes.push((n % 0x80) | 0x80);
+      n = Math.floor(n / 0x80);
+    }
+    this.bytes.push(n);
+  }
+
+  zigzag(n: number) {
+    this.varint(n >= 0 ? n * 2 : -n * 2 - 1);
+  }
+
+  string(s: string) {
+    const utf8 = Buffer.from(s, "utf8");
+    this.varint(utf8.length);
+    utf8.forEach((b) => this.bytes.push(b));
+  }
+
+  enumOrString(value: string, names: string[]) {
+    const code = names.indexOf(value) + 1;
+    this.byte(code);
+    if (code === 0) this.string(value);
+  }
+
+  toBuffer(): Buffer {
+    return Buffer.from(this.bytes);
+  }
+}
+
+class Reader {
+  private pos = 0;
+
+  constructor(private readonly buf: Buffer) {}
+
+  byte(): number {
+    if (this.pos >= this.buf.length) throw new Error("Truncated binary thermostat");
+    return this.buf[this.pos++];
+  }
+
+  varint(): number {
+    let result = 0;
+    let scale = 1;
+    for (let i = 0; i < 8; i++) {
+      const b = this.byte();
+      result += (b & 0x7f) * scale;
+      if ((b & 0x80) === 0) return result;
+      scale *= 0x80;
+    }
+    throw new Error("Varint too long in binary thermostat");
+  }
+
+  zigzag(): number {
+    const n = this.varint();
+    return n % 2 === 0 ? n / 2 : -(n + 1) / 2;
+  }
+
+  string(): string {
+    const length = this.varint();
+    if (this.pos + length > this.buf.length) throw new Error("Truncated binary thermostat");
+    const s = this.buf.toString("utf8", this.pos, this.pos + length);
+    this.pos += length;
+    return s;
+  }
+
+  enumOrString(names: string[]): string {
+    const code = this.byte();
+    if (code === 0) return this.string();
+    if (code > names.length) throw new Error(`Unknown enum code ${code} in binary thermostat`);
+    return names[code - 1];
+  }
+}
+
+type Encodable = Partial<Thermostat>;
+
+// Encodes the fields of `t` that are present (and not listed in `omit`).
+// Returns null if a value can't be represented — e.g. a fractional
+// temperature — so the caller can fall back to JSON.
+export function encodeThermostat(t: Encodable, omit: (keyof Thermostat)[] = []): Buffer | null {
+  let mask = 0;
+  FIELDS.forEach((field, bit) => {
+    if (t[field] !== undefined && t[field] !== null && !omit.includes(field)) mask |= 1 << bit;
+  });
+
+  const out = new Writer();
+  out.byte(VERSION);
+  out.byte(mask);
+  for (let bit = 0; bit < FIELDS.length; bit++) {
+    if ((mask & (1 << bit)) === 0) continue;
+    const field = FIELDS[bit];
+    switch (field) {
+      case "id":
+        if (!Number.isInteger(t.id) || t.id! < 0) return null;
+        out.varint(t.id!);
+        break;
+      case "name":
+        out.string(t.name!);
+        break;
+      case "systemMode":
+        out.enumOrString(t.systemMode!, SYSTEM_MODES);
+        break;
+      case "fanMode":
+        out.enumOrString(t.fanMode!, FAN_MODES);
+        break;
+      case "lastUpdated":
+        out.varint(new Date(t.lastUpdated!).getTime());
+        break;
+      default: {
+        const value = t[field] as number;
+        if (!Number.isSafeInteger(value)) return null;
+        out.zigzag(value);
+      }
+    }
+  }
+  return out.toBuffer();
+}
+
+// Decodes a binary document into a plain object with only the fields present.
+// The result still goes through the normal zod schema, exactly like a JSON body.
+export function decodeThermostat(buf: Buffer): Record<string, unknown> {
+  const input = new Reader(buf);
+  const version = input.byte();
+  if (version !== VERSION) throw new Error(`Unsupported binary thermostat version ${version}`);
+  const mask = input.byte();
+
+  const result: Record<string, unknown> = {};
+  for (let bit = 0; bit < FIELDS.length; bit++) {
+    if ((mask & (1 << bit)) === 0) continue;
+    const field = FIELDS[bit];
+    switch (field) {
+      case "id":
+        result.id = input.varint();
+        break;
+      case "name":
+        result.name = input.string();
+        break;
+      case "systemMode":
+        result.systemMode = input.enumOrString(SYSTEM_MODES);
+        break;
+      case "fanMode":
+        result.fanMode = input.enumOrString(FAN_MODES);
+        break;
+      case "lastUpdated":
+        result.lastUpdated = new Date(input.varint());
+        break;
+      default:
+        result[field] = input.zigzag();
+    }
+  }
+  return result;
+}
@@ -0,0 +1,178 @@
+import { performance } from "node:perf_hooks";
+import { subscribeToThermostat } from "./feeds";
+import { recordPhase } from "./timing";
+import type { IStorage } from "./storage";
+import type { Thermostat, InsertThermostat, UpdateThermostatRequest } from "@shared/schema";
+
+// ─────────────────────────────────────────────────────
+// READ-THROUGH THERMOSTAT CACHE
+// Device polls and dashboard refreshes read the same documents over and over
+// and nearly always get back what they got last time (→ 304). This keeps
+// each thermostat in memory once it has been read, so those reads cost no
+// Firestore round trip:
+//
+//   miss   → read from Firestore, then keep the entry (phase "cache-miss")
+//   hit    → answered from memory (Server-Timing phase "cache-hit")
+//   write  → written to Firestore as before; the entry takes the result
+//
+// Concurrent misses for the same thermostat share one Firestore read: when
+// a popular thermostat is evicted (or the server has just started), the
+// devices polling it don't all go to Firestore at once.
+//
+// Entries stay fresh through the same shared onSnapshot listener the SSE
+// feeds use (feeds.ts) — one per thermostat, however many readers it has.
+// Writes made through this server are visible to the very next read; writes
+// made elsewhere (another instance, the Firebase console) arrive with the
+// listener, usually well within a poll interval. The listener always wins:
+// it replaces the entry whatever the timestamps say.
+//
+// At most CACHE_MAX_ENTRIES thermostats are kept; the least recently used is
+// dropped first and its listener released. Set STORAGE_CACHE=off to bypass
+// the cache, e.g. to measure the uncached path.
+// ─────────────────────────────────────────────────────
+
+export const CACHE_MAX_ENTRIES = 1000;
+
+// How long the cached list of ids behind GET /api/thermostats is trusted.
+// A thermostat created on another instance shows up after at most this long.
+export const LIST_REFRESH_MS = 60 * 1000;
+
+type Entry = { value: Thermostat; unsubscribe: () => void };
+
+function updatedAt(thermostat: Thermostat): number {
+  return thermostat.lastUpdated ? new Date(thermostat.lastUpdated).getTime() : 0;
+}
+
+export class CachedStorage implements IStorage {
+  private readonly entries = new Map<number, Entry>(); // least recently used first
+  private readonly pending = new Map<number, Promise<Thermostat | undefined>>(); // reads in flight
+  private listIds: number[] | undefined;
+  private listedAt = 0;
+
+  constructor(private readonly inner: IStorage, private readonly maxEntries = CACHE_MAX_ENTRIES) {}
+
+  async getThermostats(): Promise<Thermostat[]> {
+    const start = performance.now();
+    const cached = this.cachedList();
+    recordPhase(cached ? "cache-hit" : "cache-miss", start);
+    if (cached) return cached;
+
+    const list = await this.inner.getThermostats();
+    list.forEach((thermostat) => this.store(thermostat));
+    this.listIds = list.map((thermostat) => thermostat.id);
+    this.listedAt = Date.now();
+    return list;
+  }
+
+  async getThermostat(id: number): Promise<Thermostat | undefined> {
+    const start = performance.now();
+    const entry = this.touch(id);
+    recordPhase(entry ? "cache-hit" : "cache-miss", start);
+    if (entry) return entry.value;
+
+    let read = this.pending.get(id);
+    if (!read) {
+      read = this.inner
+        .getThermostat(id)
+        .then((thermostat) => {
+          if (thermostat) this.store(thermostat);
+          return thermostat;
+        })
+        .finally(() => this.pending.delete(id));
+      this.pending.set(id, read);
+    }
+    const thermostat = await read;
+    if (!thermostat) return undefined;
+    // A write may have landed while the read was in flight; the entry never
+    // goes backwards, so it holds whichever state is newer
+    return this.entries.get(id)?.value ?? thermostat;
+  }
+
+  async createThermostat(thermostat: InsertThermostat): Promise<Thermostat> {
+    const created = await this.inner.createThermostat(thermostat);
+    this.store(created);
+    this.listIds?.push(created.id);
+    return created;
+  }
+
+  async replaceThermostat(id: number, thermostat: InsertThermostat): Promise<Thermostat> {
+    const replaced = await this.inner.replaceThermostat(id, thermostat);
+    this.store(replaced);
+    if (this.listIds && !this.listIds.includes(id)) this.listIds.push(id);
+    return replaced;
+  }
+
+  async updateThermostat(id: number, updates: UpdateThermostatRequest): Promise<Thermostat> {
+    const updated = await this.inner.updateThermostat(id, updates);
+    this.store(updated);
+    return updated;
+  }
+
+  async updateThermostats(
+    updates: { id: number; changes: UpdateThermostatRequest }[]
+  ): Promise<(Thermostat | undefined)[]> {
+    const results = await this.inner.updateThermostats(updates);
+    // The results come out of one transaction, so they are the committed
+    // documents and not just the request merged onto an earlier read
+    results.forEach((thermostat) => {
+      if (thermostat) this.store(thermostat);
+    });
+    return results;
+  }
+
+  // The last listed thermostats, or undefined if the list is too old or one
+  // of them has been evicted since
+  private cachedList(): Thermostat[] | undefined {
+    if (!this.listIds || Date.now() - this.listedAt > LIST_REFRESH_MS) return undefined;
+    const list: Thermostat[] = [];
+    for (const id of this.listIds) {
+      const entry = this.touch(id);
+      if (!entry) return undefined;
+      list.push(entry.value);
+    }
+    return list;
+  }
+
+  // Looks up an entry and marks it most recently used
+  private touch(id: number): Entry | undefined {
+    const entry = this.entries.get(id);
+    if (entry) {
+      this.entries.delete(id);
+      this.entries.set(id, entry);
+    }
+    return entry;
+  }
+
+  // Caches a state read from or written to Firestore, and starts listening
+  // for changes if the thermostat wasn't cached yet
+  private store(thermostat: Thermostat) {
+    const existing = this.touch(thermostat.id);
+    if (existing) {
+      this.refresh(existing, thermostat);
+      return;
+    }
+
+    const entry: Entry = { value: thermostat, unsubscribe: () => {} };
+    this.entries.set(thermostat.id, entry);
+    // The feed delivers the document's states in commit order, so whatever it
+    // says is current — even if its lastUpdated is behind ours, e.g. a write
+    // from another instance whose clock runs slow
+    entry.unsubscribe = subscribeToThermostat(thermostat.id, (_event, current) => {
+      entry.value = current;
+    });
+
+    while (this.entries.size > this.maxEntries) {
+      const [oldestId, oldest] = this.entries.entries().next().value!;
+      this.entries.delete(oldestId);
+      oldest.unsubscribe();
+    }
+  }
+
+  // A read that raced a write can deliver an older state than the one cached,
+  // so reads and our own writes never move an entry backwards. lastUpdated
+  // comes from the writer's clock, which is why feed events don't go through
+  // here: if this rejects something it shouldn't, the feed corrects it.
+  private refresh(entry: Entry, next: Thermostat) {
+    if (updatedAt(next) >= updatedAt(entry.value)) entry.value = next;
+  }
+}
@@ -0,0 +1,167 @@
+import { randomBytes } from "crypto";
+import { getDb } from "./firebase";
+import { docToThermostat } from "./storage";
+import type { Thermostat } from "@shared/schema";
+
+// ─────────────────────────────────────────────────────
+// THERMOSTAT CHANGE FEEDS
+// One Firestore onSnapshot subscription per thermostat, shared by every
+// SSE listener of that thermostat. Each change becomes an event with:
+//
+//   id    "<epoch>-<seq>", seq increasing by one per change
+//   data  only the fields that changed, e.g. {"targetTemp":72,"lastUpdated":"…"}
+//
+// The last REPLAY_BUFFER_SIZE events are kept so a device that reconnects
+// with Last-Event-ID gets exactly the events it missed. If its id is too old
+// (or unknown) — or replaying would send more bytes than one full
+// snapshot — it gets a snapshot instead. Either way its copy ends up current.
+//
+// The epoch names this server process and this feed within it, so an id
+// handed out by an earlier feed — or an earlier process, whose sequence may
+// have reached the same numbers — is treated as unknown and answered with a
+// snapshot rather than mistaken for a current one.
+// ─────────────────────────────────────────────────────
+
+export const REPLAY_BUFFER_SIZE = 256;
+
+// How long a feed (and its replay buffer) outlives its last listener —
+// long enough for a device to ride out a network drop and resume.
+export const FEED_RETENTION_MS = 5 * 60 * 1000;
+
+// Random per process: a restart can't reuse an earlier process's epochs
+const BOOT_ID = randomBytes(4).toString("hex");
+let feedsStarted = 0;
+
+export type FeedEvent =
+  | { type: "snapshot"; id: string; data: Thermostat }
+  | { type: "update"; id: string; data: Partial<Thermostat> };
+
+// `current` is the whole thermostat after the event — for listeners (like
+// the storage cache) that want state rather than deltas
+export type FeedListener = (event: FeedEvent, current: Thermostat) => void;
+
+const DIFFED_FIELDS = [
+  "name",
+  "currentTemp",
+  "targetTemp",
+  "systemMode",
+  "fanMode",
+  "currentHumidity",
+  "lastUpdated",
+] as const;
+
+function diff(prev: Thermostat, next: Thermostat): Partial<Thermostat> {
+  const delta: Record<string, unknown> = {};
+  for (const field of DIFFED_FIELDS) {
+    const a = prev[field];
+    const b = next[field];
+    const same = a instanceof Date && b instanceof Date ? a.getTime() === b.getTime() : a === b;
+    if (!same) delta[field] = b;
+  }
+  return delta as Partial<Thermostat>;
+}
+
+class ThermostatFeed {
+  private current: Thermostat | undefined;
+  private readonly epoch = `${BOOT_ID}.${++feedsStarted}`;
+  private lastSeq = 0;
+  private readonly replay: { seq: number; event: FeedEvent; bytes: number }[] = []; // update events only, oldest first
+  private readonly listeners = new Set<FeedListener>();
+  private readonly unsubscribe: () => void;
+  private retention: NodeJS.Timeout | undefined;
+
+  constructor(docId: string, private readonly onClose: () => void) {
+    this.unsubscribe = getDb()
+      .collection("thermostats")
+      .doc(docId)
+      .onSnapshot((snapshot) => {
+        if (!snapshot.exists) return;
+        this.apply(docToThermostat(snapshot.id, snapshot.data()!));
+      });
+  }
+
+  private apply(next: Thermostat) {
+    const prev = this.current;
+    this.current = next;
+
+    // First state of a new feed: everyone already waiting gets it as their snapshot
+    if (!prev) {
+      const snapshot: FeedEvent = { type: "snapshot", id: this.eventId(this.lastSeq), data: next };
+      this.listeners.forEach((listener) => listener(snapshot, next));
+      return;
+    }
+
+    const delta = diff(prev, next);
+    if (Object.keys(delta).length === 0) return;
+    const seq = ++this.lastSeq;
+    const event: FeedEvent = { type: "update", id: this.eventId(seq), data: delta };
+    this.replay.push({ seq, event, bytes: JSON.stringify(delta).length });
+    if (this.replay.length > REPLAY_BUFFER_SIZE) this.replay.shift();
+    this.listeners.forEach((listener) => listener(event, next));
+  }
+
+  private eventId(seq: number): string {
+    return `${this.epoch}-${seq}`;
+  }
+
+  // Update events after `id`, or undefined if it's from another epoch, the
+  // buffer doesn't reach back that far or a snapshot would be smaller than
+  // the replay
+  private eventsAfter(id: string, current: Thermostat): FeedEvent[] | undefined {
+    const match = /^(.+)-(\d+)$/.exec(id);
+    if (!match || match[1] !== this.epoch) return undefined;
+    const seq = Number(match[2]);
+    const floor = this.replay.length > 0 ? this.replay[0].seq - 1 : this.lastSeq;
+    if (seq < floor || seq > this.lastSeq) return undefined;
+    const missed = this.replay.slice(seq - floor);
+    const replayBytes = missed.reduce((sum, m) => sum + m.bytes, 0);
+    if (replayBytes > JSON.stringify(current).length) return undefined;
+    return missed.map((m) => m.event);
+  }
+
+  subscribe(listener: FeedListener, lastEventId?: string): () => void {
+    clearTimeout(this.retention);
+    this.listeners.add(listener);
+
+    // Before the first state arrives there's nothing to resume from — the
+    // listener gets the snapshot from apply() like everyone else
+    if (this.current) {
+      const missed = lastEventId !== undefined ? this.eventsAfter(lastEventId, this.current) : undefined;
+      if (missed) {
+        missed.forEach((event) => listener(event, this.current!));
+      } else {
+        listener({ type: "snapshot", id: this.eventId(this.lastSeq), data: this.current }, this.current);
+      }
+    }
+
+    return () => {
+      this.listeners.delete(listener);
+      if (this.listeners.size === 0) {
+        this.retention = setTimeout(() => this.close(), FEED_RETENTION_MS);
+        this.retention.unref();
+      }
+    };
+  }
+
+  private close() {
+    this.unsubscribe();
+    this.onClose();
+  }
+}
+
+const feeds = new Map<number, ThermostatFeed>();
+
+// Subscribes to a thermostat's change feed, starting the shared Firestore
+// listener if this is the first subscriber. Returns the unsubscribe function.
+export function subscribeToThermostat(
+  id: number,
+  listener: FeedListener,
+  lastEventId?: string
+): () => void {
+  let feed = feeds.get(id);
+  if (!feed) {
+    feed = new ThermostatFeed(String(id), () => feeds.delete(id));
+    feeds.set(id, feed);
+  }
+  return feed.subscribe(listener, lastEventId);
+}
@@ -2,6 +2,8 @@ import 'dotenv/config';
 import express, { type Request, Response, NextFunction } from "express";
 import { registerRoutes } from "./routes";
 import { serveStatic } from "./static";
+import { serverTiming } from "./timing";
+import { BINARY_MEDIA_TYPE } from "./binary";
 import { createServer } from "http";
 
 const app = express();
@@ -23,6 +25,12 @@ app.use(
 
 app.use(express.urlencoded({ extended: false }));
 
+// Opt-in compact binary PATCH bodies from devices (see binary.ts)
+app.use(express.raw({ type: BINARY_MEDIA_TYPE, limit: "1kb" }));
+
+// Per-phase Server-Timing header on every API response (see timing.ts)
+app.use("/api", serverTiming);
+
 export function log(message: string, source = "express") {
   const formattedTime = new Date().toLocaleTimeString("en-US", {
     hour: "numeric",
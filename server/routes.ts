@@ -1,10 +1,34 @@
-import type { Express } from "express";
+import type { Express, Request, Response } from "express";
 import type { Server } from "http";
 import { storage } from "./storage";
-import { getDb } from "./firebase";
-import { api } from "@shared/routes";
+import { subscribeToThermostat } from "./feeds";
+import { timedSync } from "./timing";
+import { BINARY_MEDIA_TYPE, decodeThermostat, encodeThermostat } from "./binary";
+import type { Thermostat } from "@shared/schema";
+import { api, bulkUpdateItemSchema, type BulkUpdateItem, type BulkUpdateResult } from "@shared/routes";
 import { z } from "zod";
 
+// Sends the thermostat as JSON, or in the compact binary encoding when the
+// client explicitly asked for it with Accept. `omit` drops fields the device
+// already has (e.g. the name on every poll).
+function sendThermostat(req: Request, res: Response, thermostat: Thermostat, omit: (keyof Thermostat)[] = []) {
+  res.vary("Accept");
+  if (req.accepts(["application/json", BINARY_MEDIA_TYPE]) === BINARY_MEDIA_TYPE) {
+    const encoded = encodeThermostat(thermostat, omit);
+    if (encoded) {
+      return res.type(BINARY_MEDIA_TYPE).send(encoded);
+    }
+  }
+  res.json(thermostat);
+}
+
+// Fields a PATCH didn't touch — a binary PATCH response only echoes the
+// changed fields plus id and lastUpdated.
+function untouchedFields(input: object): (keyof Thermostat)[] {
+  const mutable = ["name", "currentTemp", "targetTemp", "systemMode", "fanMode", "currentHumidity"] as const;
+  return mutable.filter((field) => !(field in input));
+}
+
 export async function registerRoutes(
   httpServer: Server,
   app: Express
@@ -33,15 +57,92 @@ export async function registerRoutes(
     if (!thermostat) {
       return res.status(404).json({ message: 'Thermostat not found' });
     }
-    res.json(thermostat);
+    sendThermostat(req, res, thermostat);
   });
 
   // PATCH update thermostat (used by app and device to report changes)
+  // Accepts JSON or, with Content-Type: application/vnd.thermostat+binary,
+  // a binary body carrying only the changed fields.
   app.patch(api.thermostats.update.path, async (req, res) => {
+    let body: unknown = req.body;
+    if (req.is(BINARY_MEDIA_TYPE)) {
+      try {
+        body = decodeThermostat(req.body as Buffer);
+      } catch (err) {
+        return res.status(400).json({ message: (err as Error).message });
+      }
+    }
+
     try {
-      const input = api.thermostats.update.input.parse(req.body);
+      const input = timedSync("validate", () => api.thermostats.update.input.parse(body));
       const thermostat = await storage.updateThermostat(Number(req.params.id), input);
-      res.json(thermostat);
+      sendThermostat(req, res, thermostat, untouchedFields(input));
+    } catch (err) {
+      if (err instanceof z.ZodError) {
+        return res.status(400).json({
+          message: err.errors[0].message,
+          field: err.errors[0].path.join('.'),
+        });
+      }
+      throw err;
+    }
+  });
+
+  // PUT create or replace a thermostat at a given id (seeds test fixtures —
+  // every browser test class works on a thermostat of its own)
+  app.put(api.thermostats.replace.path, async (req, res) => {
+    const id = Number(req.params.id);
+    if (!Number.isInteger(id) || id < 1) {
+      return res.status(400).json({ message: "Thermostat id must be a positive integer", field: "id" });
+    }
+    try {
+      const input = timedSync("validate", () => api.thermostats.replace.input.parse(req.body));
+      res.json(await storage.replaceThermostat(id, input));
+    } catch (err) {
+      if (err instanceof z.ZodError) {
+        return res.status(400).json({
+          message: err.errors[0].message,
+          field: err.errors[0].path.join('.'),
+        });
+      }
+      throw err;
+    }
+  });
+
+  // PATCH many thermostats at once (e.g. a building-wide set-point change)
+  // Body: { "updates": [{ "id": 1, "changes": { "targetTemp": 70 } }, ...] }
+  // All valid items are written in one Firestore transaction. The response has one
+  // result per item, in request order, with the status that item alone would
+  // have got — a bad or unknown id fails on its own without failing the rest.
+  app.patch(api.thermostats.bulkUpdate.path, async (req, res) => {
+    try {
+      const results: BulkUpdateResult[] = [];
+      const valid: { index: number; item: BulkUpdateItem }[] = [];
+      timedSync("validate", () => {
+        const { updates } = api.thermostats.bulkUpdate.input.parse(req.body);
+        updates.forEach((raw, index) => {
+          const parsed = bulkUpdateItemSchema.safeParse(raw);
+          if (parsed.success) {
+            valid.push({ index, item: parsed.data });
+          } else {
+            const id = (raw as { id?: unknown } | null)?.id;
+            results[index] = {
+              status: 400,
+              id: typeof id === "number" ? id : undefined,
+              message: parsed.error.errors[0].message,
+            };
+          }
+        });
+      });
+
+      const updated = valid.length > 0 ? await storage.updateThermostats(valid.map((v) => v.item)) : [];
+      valid.forEach(({ index, item }, i) => {
+        const thermostat = updated[i];
+        results[index] = thermostat
+          ? { status: 200, id: item.id, thermostat }
+          : { status: 404, id: item.id, message: "Thermostat not found" };
+      });
+      res.json({ results });
     } catch (err) {
       if (err instanceof z.ZodError) {
         return res.status(400).json({
@@ -59,6 +160,11 @@ export async function registerRoutes(
   // The server checks if the thermostat was updated AFTER that timestamp.
   // If nothing changed → 304 (no data sent, saves bandwidth)
   // If something changed → 200 + full thermostat JSON
+  //   (or, with Accept: application/vnd.thermostat+binary, every field
+  //   except the name in the compact binary encoding — see binary.ts)
+  //
+  // Reads come from the storage cache (see cache.ts), so the common 304
+  // costs no Firestore read at all.
   //
   // Device usage example:
   //   GET /api/thermostats/1/poll?since=1708900000000
@@ -84,7 +190,7 @@ export async function registerRoutes(
     }
 
     // Something changed — send the latest data
-    res.json(thermostat);
+    sendThermostat(req, res, thermostat, ["name"]);
   });
 
   // ─────────────────────────────────────────────────────
@@ -96,15 +202,37 @@ export async function registerRoutes(
   // Device usage example:
   //   GET /api/thermostats/1/listen
   //   → connection stays open
-  //   → device receives pushed events like:
-  //       data: {"targetTemp":72,"systemMode":"heat"}
+  //   → device first receives the full thermostat, then only what changes:
+  //       id: 9f3c2a1b.3-0
+  //       event: snapshot
+  //       data: {"id":1,"name":"Living Room","targetTemp":70,...}
+  //
+  //       id: 9f3c2a1b.3-1
+  //       event: update
+  //       data: {"targetTemp":72,"lastUpdated":"2024-02-25T22:26:41.123Z"}
+  //
+  // After a dropped connection the device reconnects with the header
+  //   Last-Event-ID: 9f3c2a1b.3-1
+  // and gets only the updates it missed (or a fresh snapshot if too many
+  // were missed to replay, or the id is from an earlier feed or server
+  // process — see feeds.ts).
   //
   // Event types:
-  //   "update"  – thermostat data changed (device should act on it)
-  //   "ping"    – keep-alive every 30s so the connection doesn't drop
+  //   "snapshot" – full thermostat; replaces whatever the device had
+  //   "update"   – changed fields only; merge into the device's copy
+  //   "ping"     – keep-alive every 30s so the connection doesn't drop
   // ─────────────────────────────────────────────────────
-  app.get('/api/thermostats/:id/listen', (req, res) => {
-    const id = req.params.id;
+  app.get('/api/thermostats/:id/listen', async (req, res) => {
+    // Normalise the id before keying the shared feed on it, so /01/listen
+    // joins the feed of /1/listen instead of opening a second listener
+    const id = Number(req.params.id);
+    if (!Number.isInteger(id) || id < 1) {
+      return res.status(400).json({ message: "Thermostat id must be a positive integer", field: "id" });
+    }
+    if (!(await storage.getThermostat(id))) {
+      return res.status(404).json({ message: 'Thermostat not found' });
+    }
+    const lastEventId = req.header('Last-Event-ID');
 
     // Set SSE headers — tells the client this is a streaming response
     res.setHeader('Content-Type', 'text/event-stream');
@@ -112,29 +240,28 @@ export async function registerRoutes(
     res.setHeader('Connection', 'keep-alive');
     res.flushHeaders();
 
-    // Send an initial confirmation that the connection is established
-    res.write(`event: connected\ndata: {"message":"Listening for changes to thermostat ${id}"}\n\n`);
-
-    // Attach a Firebase real-time listener to the Firestore document.
-    // Firebase calls this callback EVERY TIME the document changes.
-    const unsubscribe = getDb()
-      .collection('thermostats')
-      .doc(id)
-      .onSnapshot((snapshot) => {
-        if (!snapshot.exists) return;
-        const data = snapshot.data();
-        // Push the updated data to the device immediately
-        res.write(`event: update\ndata: ${JSON.stringify(data)}\n\n`);
-      });
+    // Send an initial confirmation that the connection is established,
+    // and ask clients to reconnect quickly so they stay within the replay buffer
+    res.write(`retry: 2000\nevent: connected\ndata: {"message":"Listening for changes to thermostat ${id}"}\n\n`);
+
+    // Every listener of this thermostat shares one Firestore real-time listener
+    const unsubscribe = subscribeToThermostat(
+      id,
+      (event) => {
+        res.write(`id: ${event.id}\nevent: ${event.type}\ndata: ${JSON.stringify(event.data)}\n\n`);
+      },
+      lastEventId || undefined
+    );
 
     // Keep-alive ping every 30 seconds to prevent connection timeout
+    // (no id, so it doesn't move the device's Last-Event-ID)
     const keepAlive = setInterval(() => {
       res.write(`event: ping\ndata: {"time":${Date.now()}}\n\n`);
     }, 30000);
 
     // Cleanup when the device disconnects
     req.on('close', () => {
-      unsubscribe();           // Stop Firebase listener
+      unsubscribe();           // Leave the shared feed (it's kept for a while for resumes)
       clearInterval(keepAlive); // Stop ping timer
       res.end();
     });
@@ -1,9 +1,11 @@
 import { getDb } from "./firebase";
+import { timed } from "./timing";
+import { CachedStorage } from "./cache";
 import type { Thermostat, InsertThermostat, UpdateThermostatRequest } from "@shared/schema";
 
 const COLLECTION = "thermostats";
 
-function docToThermostat(id: string, data: FirebaseFirestore.DocumentData): Thermostat {
+export function docToThermostat(id: string, data: FirebaseFirestore.DocumentData): Thermostat {
   return {
     id: parseInt(id),
     name: data.name,
@@ -20,40 +22,85 @@ export interface IStorage {
   getThermostats(): Promise<Thermostat[]>;
   getThermostat(id: number): Promise<Thermostat | undefined>;
   createThermostat(thermostat: InsertThermostat): Promise<Thermostat>;
+  replaceThermostat(id: number, thermostat: InsertThermostat): Promise<Thermostat>;
   updateThermostat(id: number, updates: UpdateThermostatRequest): Promise<Thermostat>;
+  updateThermostats(updates: { id: number; changes: UpdateThermostatRequest }[]): Promise<(Thermostat | undefined)[]>;
 }
 
 export class FirebaseStorage implements IStorage {
   async getThermostats(): Promise<Thermostat[]> {
-    const snapshot = await getDb().collection(COLLECTION).get();
+    const snapshot = await timed("db-list", () => getDb().collection(COLLECTION).get());
     return snapshot.docs.map((doc) => docToThermostat(doc.id, doc.data()));
   }
 
   async getThermostat(id: number): Promise<Thermostat | undefined> {
-    const doc = await getDb().collection(COLLECTION).doc(String(id)).get();
+    const doc = await timed("db-get", () => getDb().collection(COLLECTION).doc(String(id)).get());
     if (!doc.exists) return undefined;
     return docToThermostat(doc.id, doc.data()!);
   }
 
   async createThermostat(thermostat: InsertThermostat): Promise<Thermostat> {
     const db = getDb();
-    const snapshot = await db.collection(COLLECTION).get();
+    const snapshot = await timed("db-count", () => db.collection(COLLECTION).get());
     const newId = snapshot.size + 1;
     const data = {
       ...thermostat,
       lastUpdated: new Date(),
     };
-    await db.collection(COLLECTION).doc(String(newId)).set(data);
+    await timed("db-set", () => db.collection(COLLECTION).doc(String(newId)).set(data));
     return docToThermostat(String(newId), data);
   }
 
+  async replaceThermostat(id: number, thermostat: InsertThermostat): Promise<Thermostat> {
+    const data = { ...thermostat, lastUpdated: new Date() };
+    await timed("db-set", () => getDb().collection(COLLECTION).doc(String(id)).set(data));
+    return docToThermostat(String(id), data);
+  }
+
   async updateThermostat(id: number, updates: UpdateThermostatRequest): Promise<Thermostat> {
     const ref = getDb().collection(COLLECTION).doc(String(id));
     const updateData = { ...updates, lastUpdated: new Date() };
-    await ref.update(updateData);
-    const updated = await ref.get();
+    await timed("db-update", () => ref.update(updateData));
+    const updated = await timed("db-reread", () => ref.get());
     return docToThermostat(updated.id, updated.data()!);
   }
+
+  // Applies many partial updates in one transaction, instead of an update +
+  // re-read per thermostat. Returns the updated thermostats in input order;
+  // undefined marks an id that doesn't exist (nothing is written for it).
+  // Firestore retries the transaction if any of the documents changes between
+  // the read and the commit, so each result is exactly what was committed —
+  // a concurrent PATCH is either in it or comes after it.
+  async updateThermostats(
+    updates: { id: number; changes: UpdateThermostatRequest }[]
+  ): Promise<(Thermostat | undefined)[]> {
+    const db = getDb();
+    const refs = updates.map((u) => db.collection(COLLECTION).doc(String(u.id)));
+
+    return timed("db-transaction", () =>
+      db.runTransaction(async (tx) => {
+        // The read tells us which ids exist and lets us build the responses
+        // without re-reading. The same id may appear twice — later changes win.
+        const docs = await tx.getAll(...refs);
+        const current = new Map<string, FirebaseFirestore.DocumentData>();
+        docs.forEach((doc) => {
+          if (doc.exists) current.set(doc.id, doc.data()!);
+        });
+
+        const lastUpdated = new Date();
+        return updates.map((u, i) => {
+          const data = current.get(refs[i].id);
+          if (!data) return undefined;
+          const merged = { ...data, ...u.changes };
+          current.set(refs[i].id, merged);
+          tx.update(refs[i], { ...u.changes, lastUpdated });
+          return { ...docToThermostat(refs[i].id, merged), lastUpdated };
+        });
+      })
+    );
+  }
 }
 
-export const storage = new FirebaseStorage();
+// Reads go through the in-memory cache (cache.ts) unless STORAGE_CACHE=off
+export const storage: IStorage =
+  process.env.STORAGE_CACHE === "off" ? new FirebaseStorage() : new CachedStorage(new FirebaseStorage());
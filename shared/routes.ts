@@ -14,6 +14,23 @@ export const errorSchemas = {
   }),
 };
 
+// Firestore caps a write batch at 500 operations
+export const MAX_BULK_UPDATES = 500;
+
+export const bulkUpdateItemSchema = z.object({
+  id: z.number().int().positive(),
+  changes: insertThermostatSchema.partial(),
+});
+
+// One entry per requested update, in request order. `status` is the HTTP
+// status that item would have got from PATCH /api/thermostats/:id.
+export const bulkUpdateResultSchema = z.object({
+  status: z.number(),
+  id: z.number().optional(),
+  thermostat: insertThermostatSchema.optional(),
+  message: z.string().optional(),
+});
+
 export const api = {
   thermostats: {
     list: {
@@ -41,6 +58,29 @@ export const api = {
         404: errorSchemas.notFound,
       },
     },
+    // Creates the thermostat with this id, or replaces all of its fields.
+    // Used to seed test fixtures at known ids; idempotent.
+    replace: {
+      method: 'PUT' as const,
+      path: '/api/thermostats/:id' as const,
+      input: insertThermostatSchema,
+      responses: {
+        200: insertThermostatSchema,
+        400: errorSchemas.validation,
+      },
+    },
+    bulkUpdate: {
+      method: 'PATCH' as const,
+      path: '/api/thermostats' as const,
+      // Items are validated one by one so a bad entry fails alone — see bulkUpdateItemSchema
+      input: z.object({
+        updates: z.array(z.unknown()).min(1).max(MAX_BULK_UPDATES),
+      }),
+      responses: {
+        200: z.object({ results: z.array(bulkUpdateResultSchema) }),
+        400: errorSchemas.validation,
+      },
+    },
   },
 };
 
@@ -57,3 +97,5 @@ export function buildUrl(path: string, params?: Record<string, string | number>)
 }
 
 export type ThermostatUpdateInput = z.infer<typeof api.thermostats.update.input>;
+export type BulkUpdateItem = z.infer<typeof bulkUpdateItemSchema>;
+export type BulkUpdateResult = z.infer<typeof bulkUpdateResultSchema>;